@@ -0,0 +1,152 @@
+package com.karjakina.labs.benchmark;
+
+import com.karjakina.labs.service.CsvTokenizer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сравнение двух прогонов JMH, сохранённых в CSV.
+ *
+ * Порядок работы:
+ * <pre>
+ * mvn -B package -DskipTests
+ * java -jar lab-1-benchmarks/target/benchmarks.jar -prof gc -rf csv -rff results/before.csv
+ * (изменение кода, пересборка)
+ * java -jar lab-1-benchmarks/target/benchmarks.jar -prof gc -rf csv -rff results/after.csv
+ * java -cp lab-1-benchmarks/target/benchmarks.jar com.karjakina.labs.benchmark.BenchmarkComparison \
+ *      results/before.csv results/after.csv
+ * </pre>
+ * Для каждого бенчмарка и набора параметров печатается время (или пропускная способность)
+ * и выделенная на операцию память (gc.alloc.rate.norm), изменение в процентах и вывод:
+ * если доверительные интервалы пересекаются, разница считается шумом.
+ * Тот же прогон можно сохранить и как -rf json для внешних визуализаторов.
+ */
+public final class BenchmarkComparison {
+
+    // Из вторичных метрик -prof gc сравниваем только память на операцию
+    private static final String ALLOCATION_METRIC = ":gc.alloc.rate.norm";
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Использование: BenchmarkComparison <до.csv> <после.csv>");
+            System.exit(1);
+        }
+        Map<String, Result> before = read(Path.of(args[0]));
+        Map<String, Result> after = read(Path.of(args[1]));
+
+        System.out.printf("%-72s %22s %22s %9s  %s%n", "Бенчмарк", "до", "после", "разница", "");
+        for (Map.Entry<String, Result> entry : after.entrySet()) {
+            Result now = entry.getValue();
+            Result was = before.get(entry.getKey());
+            if (was == null) {
+                System.out.printf("%-72s %22s %22s %9s  %s%n", entry.getKey(), "-", now, "", "новый");
+                continue;
+            }
+            double change = (now.score - was.score) / was.score * 100;
+            System.out.printf("%-72s %22s %22s %+8.1f%%  %s%n",
+                    entry.getKey(), was, now, change, verdict(was, now));
+        }
+        for (String key : before.keySet()) {
+            if (!after.containsKey(key)) {
+                System.out.printf("%-72s %22s %22s %9s  %s%n", key, before.get(key), "-", "", "удалён");
+            }
+        }
+    }
+
+    /**
+     * Для метрик "на операцию" (ms/op, B/op) лучше меньше, для ops/ms — больше
+     */
+    private static String verdict(Result was, Result now) {
+        boolean overlap = now.score - now.error <= was.score + was.error
+                && was.score - was.error <= now.score + now.error;
+        if (overlap) {
+            return "~";
+        }
+        boolean lowerIsBetter = now.unit.endsWith("/op");
+        return (now.score < was.score) == lowerIsBetter ? "лучше" : "хуже";
+    }
+
+    /**
+     * Результаты из CSV JMH: ключ — короткое имя бенчмарка (и метрики) с параметрами
+     */
+    private static Map<String, Result> read(Path file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            CsvTokenizer tokenizer = new CsvTokenizer(reader);
+            if (!tokenizer.next()) {
+                return results;
+            }
+            List<String> header = new ArrayList<>();
+            for (int i = 0; i < tokenizer.fieldCount(); i++) {
+                header.add(tokenizer.getString(i));
+            }
+            int benchmark = header.indexOf("Benchmark");
+            int score = header.indexOf("Score");
+            int error = header.indexOf("Score Error (99.9%)");
+            int unit = header.indexOf("Unit");
+
+            while (tokenizer.next()) {
+                String name = tokenizer.getString(benchmark);
+                int metric = name.indexOf(':');
+                if (metric >= 0 && !name.endsWith(ALLOCATION_METRIC)) {
+                    continue;
+                }
+                StringBuilder key = new StringBuilder(shortName(name));
+                for (int i = 0; i < header.size(); i++) {
+                    if (header.get(i).startsWith("Param: ") && !tokenizer.isEmpty(i)) {
+                        key.append(' ').append(header.get(i).substring("Param: ".length()))
+                                .append('=').append(tokenizer.getString(i));
+                    }
+                }
+                results.put(key.toString(), new Result(parseNumber(tokenizer.getString(score)),
+                        parseNumber(tokenizer.getString(error)), tokenizer.getString(unit)));
+            }
+        }
+        return results;
+    }
+
+    // com.karjakina.labs.benchmark.CsvParseBenchmark.readCharacters -> CsvParseBenchmark.readCharacters
+    private static String shortName(String name) {
+        int metric = name.indexOf(':');
+        String method = metric < 0 ? name : name.substring(0, metric);
+        int methodDot = method.lastIndexOf('.');
+        int classDot = methodDot > 0 ? method.lastIndexOf('.', methodDot - 1) : -1;
+        return name.substring(classDot + 1);
+    }
+
+    private static double parseNumber(String value) {
+        if (value.isEmpty() || value.equals("NaN")) {
+            return 0;
+        }
+        // JMH пишет числа в локали JVM — на случай десятичной запятой
+        return Double.parseDouble(value.replace(',', '.'));
+    }
+
+    private static final class Result {
+        final double score;
+        final double error;
+        final String unit;
+
+        Result(double score, double error, String unit) {
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.3f ± %.3f %s", score, error, unit);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.karjakina.labs.benchmark;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+import com.karjakina.labs.service.CsvReader;
+import com.karjakina.labs.service.CsvTokenizer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Стадия разбора: из CSV файла в персонажей (или колонки) всеми способами CsvReader.
+ * Разница с CsvReadBenchmark на том же rows — стоимость самого разбора.
+ * Запуск: java -jar lab-1-benchmarks/target/benchmarks.jar CsvParseBenchmark -prof gc
+ * Для rows=10000000 нужна куча побольше: -jvmArgsAppend -Xmx8g
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvParseBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private String filename;
+    private char[] data;
+    private CsvReader csvReader;
+    private CsvReader mappedCsvReader;
+
+    @Setup
+    public void setUp() throws IOException {
+        filename = SyntheticCharacters.csvFile(rows).toString();
+        data = SyntheticCharacters.csv(rows).toCharArray();
+        csvReader = new CsvReader();
+        mappedCsvReader = new CsvReader(true);
+        // Снимок для loadColumns пишется здесь, а не в первой итерации
+        csvReader.loadColumns(filename);
+    }
+
+    /**
+     * Только токенизация из памяти: без диска и без создания персонажей
+     */
+    @Benchmark
+    public void tokenizeInMemory(Blackhole blackhole) throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(data, data.length);
+        while (tokenizer.next()) {
+            blackhole.consume(tokenizer.fieldCount());
+        }
+    }
+
+    @Benchmark
+    public List<RickMortyCharacter> readCharacters() throws IOException {
+        return csvReader.readCharacters(filename);
+    }
+
+    @Benchmark
+    public List<RickMortyCharacter> readCharactersMapped() throws IOException {
+        return mappedCsvReader.readCharacters(filename);
+    }
+
+    @Benchmark
+    public List<RickMortyCharacter> readCharactersParallel() throws IOException {
+        return csvReader.readCharactersParallel(filename, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Потоковое чтение: персонажи не накапливаются в списке
+     */
+    @Benchmark
+    public long streamCharacters() throws IOException {
+        try (Stream<RickMortyCharacter> characters = csvReader.streamCharacters(filename)) {
+            return characters.count();
+        }
+    }
+
+    @Benchmark
+    public Object readColumns() throws IOException {
+        return csvReader.readColumns(filename);
+    }
+
+    /**
+     * Колонки из свежего двоичного снимка — путь холодного старта
+     */
+    @Benchmark
+    public Object loadColumnsFromSnapshot() throws IOException {
+        return csvReader.loadColumns(filename);
+    }
+}
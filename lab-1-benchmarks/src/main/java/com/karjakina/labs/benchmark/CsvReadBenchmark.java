@@ -0,0 +1,90 @@
+package com.karjakina.labs.benchmark;
+
+import com.karjakina.labs.service.MappedUtf8Reader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стадия чтения: сколько стоит просто достать байты и раскодировать UTF-8, без разбора CSV.
+ * Нижняя граница для CsvParseBenchmark на тех же файлах (файл после первого прохода в page cache).
+ * Запуск: java -jar lab-1-benchmarks/target/benchmarks.jar CsvReadBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvReadBenchmark {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // 10 миллионов строк: -p rows=10000000
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private Path file;
+    private char[] chars;
+    private ByteBuffer bytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = SyntheticCharacters.csvFile(rows);
+        chars = new char[BUFFER_SIZE];
+        bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Только байты: FileChannel в прямой буфер
+     */
+    @Benchmark
+    public long channelBytes() throws IOException {
+        long total = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int read;
+            while ((read = channel.read(bytes.clear())) > 0) {
+                total += read;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Байты и UTF-8 через BufferedReader — так читает CsvReader по умолчанию
+     */
+    @Benchmark
+    public long bufferedReaderChars() throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return drain(reader);
+        }
+    }
+
+    /**
+     * Байты и UTF-8 через отображение файла в память — CsvReader(true)
+     */
+    @Benchmark
+    public long mappedReaderChars() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             Reader reader = new MappedUtf8Reader(channel, 0, channel.size())) {
+            return drain(reader);
+        }
+    }
+
+    private long drain(Reader reader) throws IOException {
+        long total = 0;
+        int read;
+        while ((read = reader.read(chars, 0, chars.length)) > 0) {
+            total += read;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,88 @@
+package com.karjakina.labs.benchmark;
+
+import com.karjakina.labs.service.CsvTokenizer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение прежнего разбора (readLine + splitCsvLine) с CsvTokenizer.
+ * Запуск: java -jar lab-1-benchmarks/target/benchmarks.jar CsvTokenizerBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvTokenizerBenchmark {
+
+    private static final String[] SPECIES = {"Human", "Alien", "Humanoid", "Robot", "Mythological Creature"};
+    private static final String[] STATUSES = {"Alive", "Dead", "unknown"};
+    private static final String[] PLACES = {
+            "Earth (C-137)", "Citadel of Ricks", "\"Planet, with comma\"", "\"The \"\"Quoted\"\" Dimension\""
+    };
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private String csv;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder("id,name,status,species,type,gender,origin/name,location/name,created\n");
+        for (int i = 1; i <= rows; i++) {
+            sb.append(i).append(',')
+                    .append("Character ").append(i).append(',')
+                    .append(STATUSES[random.nextInt(STATUSES.length)]).append(',')
+                    .append(SPECIES[random.nextInt(SPECIES.length)]).append(',')
+                    .append(',')
+                    .append(random.nextBoolean() ? "Male" : "Female").append(',')
+                    .append(PLACES[random.nextInt(PLACES.length)]).append(',')
+                    .append(PLACES[random.nextInt(PLACES.length)]).append(',')
+                    .append("2017-11-04T18:48:46.250")
+                    .append('\n');
+        }
+        csv = sb.toString();
+    }
+
+    @Benchmark
+    public void legacySplit(Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new StringReader(csv))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                blackhole.consume(LegacyCsvSplitter.splitCsvLine(line));
+            }
+        }
+    }
+
+    /**
+     * Все поля материализуются в строки — как при полном разборе персонажа
+     */
+    @Benchmark
+    public void tokenizerAllFields(Blackhole blackhole) throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv));
+        while (tokenizer.next()) {
+            for (int i = 0; i < tokenizer.fieldCount(); i++) {
+                blackhole.consume(tokenizer.getString(i));
+            }
+        }
+    }
+
+    /**
+     * Нужно только одно поле (вид) — остальные строки не создаются
+     */
+    @Benchmark
+    public void tokenizerSingleField(Blackhole blackhole) throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv));
+        while (tokenizer.next()) {
+            blackhole.consume(tokenizer.getString(3));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.karjakina.labs.benchmark;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+import com.karjakina.labs.service.CsvWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение прежней записи (toCsvLine + BufferedWriter) с CsvWriter.
+ * Пишем в OutputStream.nullOutputStream, чтобы мерить кодирование, а не диск.
+ * Данные — SyntheticCharacters, с кавычками, запятыми и переводами строк в значениях.
+ * Запуск: java -jar lab-1-benchmarks/target/benchmarks.jar CsvWriterBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvWriterBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private List<RickMortyCharacter> characters;
+
+    @Setup
+    public void setUp() {
+        characters = SyntheticCharacters.characters(rows);
+    }
+
+    @Benchmark
+    public void legacyToCsvLine() throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8))) {
+            writer.write(CsvWriter.CHARACTER_HEADER);
+            writer.newLine();
+            for (RickMortyCharacter character : characters) {
+                writer.write(character.toCsvLine());
+                writer.newLine();
+            }
+        }
+    }
+
+    @Benchmark
+    public void csvWriter() throws IOException {
+        try (CsvWriter writer = new CsvWriter(OutputStream.nullOutputStream())) {
+            writer.writeHeader();
+            for (RickMortyCharacter character : characters) {
+                writer.writeCharacter(character);
+            }
+        }
+    }
+}
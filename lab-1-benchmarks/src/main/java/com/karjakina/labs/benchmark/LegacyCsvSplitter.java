@@ -0,0 +1,41 @@
+package com.karjakina.labs.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Копия прежнего CsvReader.splitCsvLine — точка отсчёта для сравнения с CsvTokenizer
+ */
+final class LegacyCsvSplitter {
+
+    private LegacyCsvSplitter() {
+    }
+
+    static String[] splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder currentField = new StringBuilder();
+        boolean inQuotes = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (c == '"') {
+                // Проверяем, не экранированная ли это кавычка
+                if (i < line.length() - 1 && line.charAt(i + 1) == '"') {
+                    currentField.append('"');
+                    i++; // Пропускаем следующую кавычку
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else if (c == ',' && !inQuotes) {
+                fields.add(currentField.toString());
+                currentField.setLength(0);
+            } else {
+                currentField.append(c);
+            }
+        }
+
+        fields.add(currentField.toString());
+        return fields.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,51 @@
+package com.karjakina.labs.benchmark;
+
+import com.karjakina.labs.service.ResultWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стадия записи результата: ResultWriter.writeToText в файл.
+ * Запись самих персонажей (toCsvLine и CsvWriter) — в CsvWriterBenchmark.
+ * Запуск: java -jar lab-1-benchmarks/target/benchmarks.jar ResultWriterBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultWriterBenchmark {
+
+    // Реальных видов десятки; 10000 — чтобы было видно стоимость одной строки отчёта
+    @Param({"14", "10000"})
+    public int species;
+
+    private final ResultWriter resultWriter = new ResultWriter();
+    private LinkedHashMap<String, Integer> speciesCount;
+    private Path output;
+
+    @Setup
+    public void setUp() throws IOException {
+        speciesCount = new LinkedHashMap<>();
+        for (int i = 0; i < species; i++) {
+            speciesCount.put("Species " + i, i * 7 + 1);
+        }
+        output = Files.createTempFile("species_count", ".txt");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(output);
+    }
+
+    @Benchmark
+    public void writeToText() throws IOException {
+        resultWriter.writeToText(speciesCount, output.toString());
+    }
+}
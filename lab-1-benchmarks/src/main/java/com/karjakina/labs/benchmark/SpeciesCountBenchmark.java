@@ -0,0 +1,56 @@
+package com.karjakina.labs.benchmark;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+import com.karjakina.labs.service.CharacterColumns;
+import com.karjakina.labs.service.SpeciesProcessor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стадия подсчёта: SpeciesProcessor по уже загруженным данным (список, поток, колонки).
+ * Запуск: java -jar lab-1-benchmarks/target/benchmarks.jar SpeciesCountBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpeciesCountBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private final SpeciesProcessor processor = new SpeciesProcessor();
+    private List<RickMortyCharacter> characters;
+    private CharacterColumns columns;
+
+    @Setup
+    public void setUp() {
+        characters = SyntheticCharacters.characters(rows);
+        columns = CharacterColumns.of(characters);
+    }
+
+    @Benchmark
+    public LinkedHashMap<String, Integer> countList() {
+        return processor.countSpeciesInOrder(characters);
+    }
+
+    @Benchmark
+    public LinkedHashMap<String, Integer> countStream() {
+        return processor.countSpeciesInOrder(characters.stream());
+    }
+
+    @Benchmark
+    public LinkedHashMap<String, Integer> countParallel() {
+        return processor.countSpeciesInOrderParallel(characters, Runtime.getRuntime().availableProcessors());
+    }
+
+    @Benchmark
+    public LinkedHashMap<String, Integer> countColumns() {
+        return processor.countSpeciesInOrder(columns);
+    }
+}
@@ -0,0 +1,146 @@
+package com.karjakina.labs.benchmark;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+import com.karjakina.labs.service.CsvWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Синтетические персонажи для бенчмарков: от тысяч до десятков миллионов строк.
+ *
+ * Данные детерминированы (фиксированный seed), поэтому прогоны на разных версиях кода
+ * меряют одно и то же. Примерно каждая пятая строка требует кавычек: запятые, кавычки
+ * и переводы строк внутри значений, плюс кириллица, пустые поля и даты в разных форматах.
+ *
+ * Файлы кэшируются в ${java.io.tmpdir}/lab-1-benchmarks, чтобы каждый форк JMH
+ * не генерировал 10 миллионов строк заново. Отдельно сгенерировать файл:
+ * java -cp lab-1-benchmarks/target/benchmarks.jar com.karjakina.labs.benchmark.SyntheticCharacters 1000000 out.csv
+ */
+public final class SyntheticCharacters {
+
+    // Поднимать при изменении генератора, чтобы не подхватить старые файлы из кэша
+    private static final int FORMAT_VERSION = 1;
+    private static final long SEED = 42;
+
+    private static final String[] SPECIES = {
+            "Human", "Alien", "Humanoid", "Robot", "Mythological Creature", "Animal", "Cronenberg",
+            "Disease", "Poopybutthole", "unknown", "Planet", "Vampire", "Gromflomite", "Zigerion"
+    };
+    private static final String[] STATUSES = {"Alive", "Dead", "unknown"};
+    private static final String[] GENDERS = {"Male", "Female", "Genderless", "unknown"};
+    private static final String[] TYPES = {"", "", "", "", "Parasite", "Fish-Person", "Clone", "Superhuman (Ghost trains summoner)"};
+    private static final String[] PLACES = {
+            "Earth (C-137)", "Citadel of Ricks", "Earth (Replacement Dimension)", "unknown", "Anatomy Park",
+            "Planet, with comma", "The \"Quoted\" Dimension", "Земля", "Multi\nline place", ""
+    };
+    private static final String[] NAME_SUFFIXES = {"", "", "", "", "", " Jr.", ", the Second", " \"Tiny\"", " Смит"};
+
+    private SyntheticCharacters() {
+    }
+
+    /**
+     * Сгенерировать rows персонажей в память
+     */
+    public static List<RickMortyCharacter> characters(int rows) {
+        List<RickMortyCharacter> characters = new ArrayList<>(rows);
+        forEach(rows, characters::add);
+        return characters;
+    }
+
+    /**
+     * Сгенерировать rows персонажей по одному, не держа их все в памяти
+     */
+    public static void forEach(int rows, Consumer<RickMortyCharacter> action) {
+        Random random = new Random(SEED);
+        LocalDateTime start = LocalDateTime.of(2017, 11, 4, 18, 48, 46, 250_000_000);
+
+        for (int i = 1; i <= rows; i++) {
+            action.accept(new RickMortyCharacter(i,
+                    "Character " + i + pick(random, NAME_SUFFIXES),
+                    pick(random, STATUSES),
+                    pick(random, SPECIES),
+                    pick(random, TYPES),
+                    pick(random, GENDERS),
+                    pick(random, PLACES),
+                    pick(random, PLACES),
+                    created(random, start, i)));
+        }
+    }
+
+    /**
+     * CSV файл на rows строк (из кэша, если уже сгенерирован)
+     */
+    public static Path csvFile(int rows) throws IOException {
+        Path directory = Path.of(System.getProperty("java.io.tmpdir"), "lab-1-benchmarks");
+        Path file = directory.resolve("characters-v" + FORMAT_VERSION + "-" + rows + ".csv");
+        if (!Files.exists(file)) {
+            Files.createDirectories(directory);
+            // Через временный файл: параллельный форк не увидит недописанный CSV
+            Path temp = Files.createTempFile(directory, "characters-", ".tmp");
+            writeCsv(rows, temp);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return file;
+    }
+
+    /**
+     * Записать CSV на rows строк в file
+     */
+    public static void writeCsv(int rows, Path file) throws IOException {
+        try (CsvWriter writer = new CsvWriter(file.toString())) {
+            writer.writeHeader();
+            IOException[] failure = new IOException[1];
+            forEach(rows, character -> {
+                if (failure[0] == null) {
+                    try {
+                        writer.writeCharacter(character);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        }
+    }
+
+    /**
+     * Тот же CSV строкой — для бенчмарков разбора без диска
+     */
+    public static String csv(int rows) throws IOException {
+        return Files.readString(csvFile(rows));
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * В основном полный ISO формат, изредка без секунд или пустая дата
+     */
+    private static LocalDateTime created(Random random, LocalDateTime start, int row) {
+        int kind = random.nextInt(20);
+        if (kind == 0) {
+            return null;
+        }
+        LocalDateTime created = start.plusSeconds(row);
+        return kind == 1 ? created.withSecond(0).withNano(0) : created;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Использование: SyntheticCharacters <строк> <файл>");
+            System.exit(1);
+        }
+        writeCsv(Integer.parseInt(args[0]), Path.of(args[1]));
+    }
+}
@@ -16,7 +16,6 @@ public class Main {
     private static final String INPUT_FILE = "lab-1/characters.csv";
     private static final String OUTPUT_TEXT = "species_count.txt";
 
-    private static final CsvReader csvReader = new CsvReader();
     private static final SpeciesProcessor speciesProcessor = new SpeciesProcessor();
     private static final ResultWriter resultWriter = new ResultWriter();
     private static final CharacterCrudManager crudManager = new CharacterCrudManager();
@@ -55,15 +54,16 @@ public class Main {
         try {
 
             // 1. Чтение данных из файла
+            // Файл читается один раз (через двоичный снимок), дальше данные берутся из памяти
             System.out.println("Чтение данных из файла " + INPUT_FILE);
-            List<RickMortyCharacter> characters = csvReader.readCharacters(INPUT_FILE);
-            System.out.println("Загружено персонажей: " + characters.size());
+            System.out.println("Загружено персонажей: " + crudManager.countCharacters(INPUT_FILE));
             System.out.println();
 
             // 2. Обработка данных - подсчёт видов с сохранением порядка
+            // Счётчики поддерживаются при каждом изменении в меню CRUD, пересчёт не нужен
             System.out.println("Обработка данных");
             System.out.println("Используется LinkedHashMap для сохранения порядка первого появления");
-            LinkedHashMap<String, Integer> speciesCount = speciesProcessor.countSpeciesInOrder(characters);
+            LinkedHashMap<String, Integer> speciesCount = crudManager.countSpecies(INPUT_FILE);
             System.out.println("Обработка завершена");
 
             // Вывод статистики
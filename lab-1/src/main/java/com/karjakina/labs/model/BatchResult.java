@@ -0,0 +1,42 @@
+package com.karjakina.labs.model;
+
+/**
+ * Результат пакетной операции CharacterCrudManager для одного персонажа
+ */
+public class BatchResult {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        DELETED,
+        NOT_FOUND
+    }
+
+    private final int id;
+    private final Status status;
+
+    public BatchResult(int id, Status status) {
+        this.id = id;
+        this.status = status;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSuccess() {
+        return status != Status.NOT_FOUND;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "id=" + id +
+                ", status=" + status +
+                '}';
+    }
+}
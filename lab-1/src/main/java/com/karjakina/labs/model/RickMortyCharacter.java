@@ -33,6 +33,14 @@ public class RickMortyCharacter {
         this.created = created;
     }
 
+    /**
+     * Копия персонажа (LocalDateTime неизменяемый, поэтому поверхностной копии достаточно)
+     */
+    public RickMortyCharacter(RickMortyCharacter other) {
+        this(other.id, other.name, other.status, other.species, other.type,
+                other.gender, other.originName, other.locationName, other.created);
+    }
+
     // Геттеры
     public int getId() {
         return id;
@@ -159,7 +167,11 @@ public class RickMortyCharacter {
         if (value == null) {
             return "";
         }
-        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+        if (!value.isEmpty() && value.chars().allMatch(c -> c == '"')) {
+            // Значение из одних кавычек — без обрамления, см. CsvWriter.writeField
+            return value.replace("\"", "\"\"");
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
             return "\"" + value.replace("\"", "\"\"") + "\"";
         }
         return value;
@@ -0,0 +1,15 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+
+/**
+ * Накопитель одной агрегатной функции для одной группы (см. CharacterAggregator)
+ */
+public interface Accumulator {
+
+    // Учесть очередного персонажа группы
+    void add(RickMortyCharacter character);
+
+    // Текущее значение агрегата
+    Object result();
+}
@@ -0,0 +1,99 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Готовые агрегатные функции для CharacterAggregator.
+ * Каждая функция — фабрика накопителей: на каждую группу создаётся свой Accumulator
+ */
+public final class Aggregates {
+
+    private Aggregates() {
+    }
+
+    /**
+     * Количество персонажей в группе
+     */
+    public static Supplier<Accumulator> count() {
+        return () -> new Accumulator() {
+            private long count;
+
+            @Override
+            public void add(RickMortyCharacter character) {
+                count++;
+            }
+
+            @Override
+            public Object result() {
+                return count;
+            }
+        };
+    }
+
+    /**
+     * Самая ранняя дата создания в группе (null, если дат нет)
+     */
+    public static Supplier<Accumulator> minCreated() {
+        return () -> new CreatedAccumulator(true);
+    }
+
+    /**
+     * Самая поздняя дата создания в группе (null, если дат нет)
+     */
+    public static Supplier<Accumulator> maxCreated() {
+        return () -> new CreatedAccumulator(false);
+    }
+
+    /**
+     * Количество различных значений поля в группе, null не считается
+     */
+    public static Supplier<Accumulator> distinctCount(Function<RickMortyCharacter, ?> field) {
+        return () -> new Accumulator() {
+            private final Set<Object> values = new HashSet<>();
+
+            @Override
+            public void add(RickMortyCharacter character) {
+                Object value = field.apply(character);
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+
+            @Override
+            public Object result() {
+                return (long) values.size();
+            }
+        };
+    }
+
+    private static final class CreatedAccumulator implements Accumulator {
+        private final boolean min;
+        private LocalDateTime value;
+
+        CreatedAccumulator(boolean min) {
+            this.min = min;
+        }
+
+        @Override
+        public void add(RickMortyCharacter character) {
+            LocalDateTime created = character.getCreated();
+            if (created == null) {
+                return;
+            }
+            if (value == null || (min ? created.isBefore(value) : created.isAfter(value))) {
+                value = created;
+            }
+        }
+
+        @Override
+        public Object result() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Небольшой движок группировки и агрегации персонажей.
+ *
+ * Группировки задаются ключами (одним или несколькими полями персонажа) и набором
+ * агрегатных функций из Aggregates. Все группировки считаются за один проход по данным,
+ * данные можно подавать списком, потоком (CsvReader.streamCharacters) или по одному через accept.
+ * Группы, как и в SpeciesProcessor, идут в порядке первого появления.
+ *
+ * Пример: отчёт по виду и статусу
+ * <pre>
+ * CharacterAggregator aggregator = new CharacterAggregator();
+ * aggregator.groupBy("species-status", RickMortyCharacter::getSpecies, RickMortyCharacter::getStatus)
+ *         .count()
+ *         .maxCreated();
+ * aggregator.aggregate(characters);
+ * for (Map.Entry&lt;List&lt;Object&gt;, GroupValues&gt; group : aggregator.result("species-status").entrySet()) {
+ *     long count = group.getValue().getLong("count");
+ *     LocalDateTime last = group.getValue().getDateTime("maxCreated");
+ * }
+ * </pre>
+ * Группировки задаются до первого персонажа: добавленная позже пропустила бы уже учтённых.
+ */
+public class CharacterAggregator {
+
+    private final Map<String, Grouping> groupings = new LinkedHashMap<>();
+    private boolean started;
+
+    /**
+     * Новая группировка с именем name по указанным ключам
+     */
+    @SafeVarargs
+    public final Grouping groupBy(String name, Function<RickMortyCharacter, ?>... keys) {
+        if (keys.length == 0) {
+            throw new IllegalArgumentException("Нужен хотя бы один ключ группировки");
+        }
+        if (started) {
+            throw new IllegalStateException("Группировки нужно задать до начала подсчёта: " + name);
+        }
+        if (groupings.containsKey(name)) {
+            throw new IllegalArgumentException("Группировка уже задана: " + name);
+        }
+        // Копия поэлементно: сам массив varargs наружу не передаётся
+        List<Function<RickMortyCharacter, ?>> keyList = new ArrayList<>(keys.length);
+        for (Function<RickMortyCharacter, ?> key : keys) {
+            keyList.add(key);
+        }
+        Grouping grouping = new Grouping(keyList);
+        groupings.put(name, grouping);
+        return grouping;
+    }
+
+    /**
+     * Учесть одного персонажа во всех группировках
+     */
+    public void accept(RickMortyCharacter character) {
+        started = true;
+        for (Grouping grouping : groupings.values()) {
+            grouping.accept(character);
+        }
+    }
+
+    public CharacterAggregator aggregate(Iterable<? extends RickMortyCharacter> characters) {
+        for (RickMortyCharacter character : characters) {
+            accept(character);
+        }
+        return this;
+    }
+
+    public CharacterAggregator aggregate(Stream<? extends RickMortyCharacter> characters) {
+        characters.forEachOrdered(this::accept);
+        return this;
+    }
+
+    /**
+     * Результат группировки: ключ группы -> значения агрегатов
+     */
+    public LinkedHashMap<List<Object>, GroupValues> result(String name) {
+        Grouping grouping = groupings.get(name);
+        if (grouping == null) {
+            throw new IllegalArgumentException("Группировка не задана: " + name);
+        }
+        return grouping.result();
+    }
+
+    /**
+     * Описание одной группировки и накопленные по ней группы
+     */
+    public static class Grouping {
+        private final List<Function<RickMortyCharacter, ?>> keys;
+        private final List<String> aggregateNames = new ArrayList<>();
+        private final List<Supplier<Accumulator>> aggregates = new ArrayList<>();
+        private final LinkedHashMap<List<Object>, Accumulator[]> groups = new LinkedHashMap<>();
+
+        private Grouping(List<Function<RickMortyCharacter, ?>> keys) {
+            this.keys = keys;
+        }
+
+        public Grouping count() {
+            return with("count", Aggregates.count());
+        }
+
+        public Grouping minCreated() {
+            return with("minCreated", Aggregates.minCreated());
+        }
+
+        public Grouping maxCreated() {
+            return with("maxCreated", Aggregates.maxCreated());
+        }
+
+        public Grouping distinctCount(String name, Function<RickMortyCharacter, ?> field) {
+            return with(name, Aggregates.distinctCount(field));
+        }
+
+        /**
+         * Произвольная агрегатная функция под именем name
+         */
+        public Grouping with(String name, Supplier<Accumulator> aggregate) {
+            if (!groups.isEmpty()) {
+                throw new IllegalStateException("Агрегаты нужно задать до начала подсчёта");
+            }
+            if (aggregateNames.contains(name)) {
+                throw new IllegalArgumentException("Агрегат уже задан: " + name);
+            }
+            aggregateNames.add(name);
+            aggregates.add(aggregate);
+            return this;
+        }
+
+        private void accept(RickMortyCharacter character) {
+            Object[] key = new Object[keys.size()];
+            for (int i = 0; i < key.length; i++) {
+                key[i] = keys.get(i).apply(character);
+            }
+
+            Accumulator[] accumulators = groups.computeIfAbsent(Arrays.asList(key), k -> newAccumulators());
+            for (Accumulator accumulator : accumulators) {
+                accumulator.add(character);
+            }
+        }
+
+        private Accumulator[] newAccumulators() {
+            Accumulator[] accumulators = new Accumulator[aggregates.size()];
+            for (int i = 0; i < accumulators.length; i++) {
+                accumulators[i] = aggregates.get(i).get();
+            }
+            return accumulators;
+        }
+
+        private LinkedHashMap<List<Object>, GroupValues> result() {
+            LinkedHashMap<List<Object>, GroupValues> result = new LinkedHashMap<>();
+            for (Map.Entry<List<Object>, Accumulator[]> group : groups.entrySet()) {
+                Map<String, Object> values = new LinkedHashMap<>();
+                Accumulator[] accumulators = group.getValue();
+                for (int i = 0; i < accumulators.length; i++) {
+                    values.put(aggregateNames.get(i), accumulators[i].result());
+                }
+                result.put(group.getKey(), new GroupValues(values));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Значения агрегатов одной группы с типизированным доступом по имени агрегата
+     */
+    public static final class GroupValues {
+        private final Map<String, Object> values;
+
+        private GroupValues(Map<String, Object> values) {
+            this.values = Collections.unmodifiableMap(values);
+        }
+
+        /**
+         * Значение агрегата name, приведённое к type (ClassCastException, если тип другой)
+         */
+        public <T> T get(String name, Class<T> type) {
+            if (!values.containsKey(name)) {
+                throw new IllegalArgumentException("Агрегат не задан: " + name);
+            }
+            return type.cast(values.get(name));
+        }
+
+        // count, distinctCount
+        public long getLong(String name) {
+            return get(name, Long.class);
+        }
+
+        // minCreated, maxCreated; null, если в группе нет дат
+        public LocalDateTime getDateTime(String name) {
+            return get(name, LocalDateTime.class);
+        }
+
+        public Map<String, Object> asMap() {
+            return values;
+        }
+
+        @Override
+        public String toString() {
+            return values.toString();
+        }
+    }
+}
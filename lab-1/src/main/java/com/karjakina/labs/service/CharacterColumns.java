@@ -0,0 +1,311 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * Персонажи в виде колонок вместо списка объектов.
+ *
+ * id хранятся в int[], имена в String[], повторяющиеся поля (status, species, type, gender,
+ * origin, location) — кодами словаря в int[], дата создания — микросекундами эпохи (UTC)
+ * в long[]. Наносекунды сверх микросекунд хранятся отдельно и только если встретились,
+ * чтобы get возвращал дату без потерь. Агрегации по одному полю проходят только по его массиву.
+ * Коды в словаре каждой колонки идут в порядке первого появления значения.
+ */
+public class CharacterColumns {
+    // Значение колонки created для персонажа без даты
+    public static final long NO_CREATED = Long.MIN_VALUE;
+
+    private final int size;
+    private final int[] ids;
+    private final String[] names;
+    private final CodedColumn status;
+    private final CodedColumn species;
+    private final CodedColumn type;
+    private final CodedColumn gender;
+    private final CodedColumn origin;
+    private final CodedColumn location;
+    private final long[] created;
+    // Наносекунды сверх микросекунд (0..999), null — если у всех дат их нет
+    private final short[] createdNanos;
+
+    private CharacterColumns(Builder builder) {
+        this(Arrays.copyOf(builder.ids, builder.size), Arrays.copyOf(builder.names, builder.size),
+                builder.status.build(builder.size), builder.species.build(builder.size),
+                builder.type.build(builder.size), builder.gender.build(builder.size),
+                builder.origin.build(builder.size), builder.location.build(builder.size),
+                Arrays.copyOf(builder.created, builder.size),
+                builder.createdNanos == null ? null : Arrays.copyOf(builder.createdNanos, builder.size));
+    }
+
+    /**
+     * Готовые колонки одинаковой длины (например, из CharacterSnapshot)
+     */
+    CharacterColumns(int[] ids, String[] names, CodedColumn status, CodedColumn species, CodedColumn type,
+                     CodedColumn gender, CodedColumn origin, CodedColumn location, long[] created,
+                     short[] createdNanos) {
+        this.size = ids.length;
+        this.ids = ids;
+        this.names = names;
+        this.status = status;
+        this.species = species;
+        this.type = type;
+        this.gender = gender;
+        this.origin = origin;
+        this.location = location;
+        this.created = created;
+        this.createdNanos = createdNanos;
+    }
+
+    /**
+     * Колонки из уже прочитанных персонажей (например, CsvReader.readCharacters)
+     */
+    public static CharacterColumns of(Iterable<RickMortyCharacter> characters) {
+        Builder builder = new Builder();
+        for (RickMortyCharacter character : characters) {
+            builder.add(character);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Колонки из потока персонажей (например, CsvReader.streamCharacters)
+     */
+    public static CharacterColumns of(Stream<RickMortyCharacter> characters) {
+        Builder builder = new Builder();
+        characters.forEachOrdered(builder::add);
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int[] ids() {
+        return ids;
+    }
+
+    public String[] names() {
+        return names;
+    }
+
+    public CodedColumn status() {
+        return status;
+    }
+
+    public CodedColumn species() {
+        return species;
+    }
+
+    public CodedColumn type() {
+        return type;
+    }
+
+    public CodedColumn gender() {
+        return gender;
+    }
+
+    public CodedColumn origin() {
+        return origin;
+    }
+
+    public CodedColumn location() {
+        return location;
+    }
+
+    /**
+     * Микросекунды эпохи (UTC), NO_CREATED — даты нет
+     */
+    public long[] created() {
+        return created;
+    }
+
+    /**
+     * Наносекунды сверх created(), null — если их нет ни у одной даты
+     */
+    short[] createdNanos() {
+        return createdNanos;
+    }
+
+    /**
+     * Собрать персонажа из строки row (дата — с исходной точностью)
+     */
+    public RickMortyCharacter get(int row) {
+        LocalDateTime dateTime = toDateTime(created[row]);
+        if (dateTime != null && createdNanos != null) {
+            dateTime = dateTime.plusNanos(createdNanos[row]);
+        }
+        return new RickMortyCharacter(ids[row], names[row], status.value(row), species.value(row),
+                type.value(row), gender.value(row), origin.value(row), location.value(row), dateTime);
+    }
+
+    /**
+     * Микросекунды эпохи: точность LocalDateTime.now(), которым CharacterCrudManager ставит дату
+     */
+    public static long toEpochMicros(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return NO_CREATED;
+        }
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    public static LocalDateTime toDateTime(long epochMicros) {
+        if (epochMicros == NO_CREATED) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMicros, 1_000_000),
+                Math.floorMod(epochMicros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Колонка, закодированная словарём: codes[row] — код значения, StringDictionary.NULL_CODE — null
+     */
+    public static final class CodedColumn {
+        private final int[] codes;
+        private final StringDictionary dictionary;
+
+        CodedColumn(int[] codes, StringDictionary dictionary) {
+            this.codes = codes;
+            this.dictionary = dictionary;
+        }
+
+        public int[] codes() {
+            return codes;
+        }
+
+        public StringDictionary dictionary() {
+            return dictionary;
+        }
+
+        public String value(int row) {
+            return dictionary.value(codes[row]);
+        }
+
+        /**
+         * Количество строк для каждого кода: counts[code]
+         */
+        public int[] counts() {
+            int[] counts = new int[dictionary.size()];
+            for (int code : codes) {
+                if (code != StringDictionary.NULL_CODE) {
+                    counts[code]++;
+                }
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * Построчное наполнение колонок, массивы растут удвоением.
+     * Словари переходят в готовые колонки, поэтому после build построитель не используется
+     */
+    public static class Builder {
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private int size;
+        private int[] ids = new int[INITIAL_CAPACITY];
+        private String[] names = new String[INITIAL_CAPACITY];
+        private final ColumnBuilder status = new ColumnBuilder();
+        private final ColumnBuilder species = new ColumnBuilder();
+        private final ColumnBuilder type = new ColumnBuilder();
+        private final ColumnBuilder gender = new ColumnBuilder();
+        private final ColumnBuilder origin = new ColumnBuilder();
+        private final ColumnBuilder location = new ColumnBuilder();
+        private long[] created = new long[INITIAL_CAPACITY];
+        // Заводится при первой дате с наносекундами сверх микросекунд
+        private short[] createdNanos;
+
+        public Builder add(RickMortyCharacter character) {
+            return add(character.getId(), character.getName(),
+                    status.dictionary.code(character.getStatus()),
+                    species.dictionary.code(character.getSpecies()),
+                    type.dictionary.code(character.getType()),
+                    gender.dictionary.code(character.getGender()),
+                    origin.dictionary.code(character.getOriginName()),
+                    location.dictionary.code(character.getLocationName()),
+                    character.getCreated());
+        }
+
+        /**
+         * Добавление уже закодированной строки (коды — из словарей этого построителя)
+         */
+        Builder add(int id, String name, int statusCode, int speciesCode, int typeCode, int genderCode,
+                    int originCode, int locationCode, LocalDateTime createdAt) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                names = Arrays.copyOf(names, capacity);
+                created = Arrays.copyOf(created, capacity);
+                if (createdNanos != null) {
+                    createdNanos = Arrays.copyOf(createdNanos, capacity);
+                }
+            }
+            ids[size] = id;
+            names[size] = name;
+            status.add(size, statusCode);
+            species.add(size, speciesCode);
+            type.add(size, typeCode);
+            gender.add(size, genderCode);
+            origin.add(size, originCode);
+            location.add(size, locationCode);
+            created[size] = toEpochMicros(createdAt);
+            int nanos = createdAt == null ? 0 : createdAt.getNano() % 1_000;
+            if (nanos != 0) {
+                if (createdNanos == null) {
+                    createdNanos = new short[ids.length];
+                }
+                createdNanos[size] = (short) nanos;
+            }
+            size++;
+            return this;
+        }
+
+        StringDictionary statusDictionary() {
+            return status.dictionary;
+        }
+
+        StringDictionary speciesDictionary() {
+            return species.dictionary;
+        }
+
+        StringDictionary typeDictionary() {
+            return type.dictionary;
+        }
+
+        StringDictionary genderDictionary() {
+            return gender.dictionary;
+        }
+
+        StringDictionary originDictionary() {
+            return origin.dictionary;
+        }
+
+        StringDictionary locationDictionary() {
+            return location.dictionary;
+        }
+
+        public CharacterColumns build() {
+            return new CharacterColumns(this);
+        }
+    }
+
+    private static final class ColumnBuilder {
+        private final StringDictionary dictionary = new StringDictionary();
+        private int[] codes = new int[Builder.INITIAL_CAPACITY];
+
+        void add(int row, int code) {
+            if (row == codes.length) {
+                codes = Arrays.copyOf(codes, row * 2);
+            }
+            codes[row] = code;
+        }
+
+        CodedColumn build(int size) {
+            return new CodedColumn(Arrays.copyOf(codes, size), dictionary);
+        }
+    }
+}
@@ -1,18 +1,67 @@
 package com.karjakina.labs.service;
 
+import com.karjakina.labs.model.BatchResult;
 import com.karjakina.labs.model.RickMortyCharacter;
 
 import java.io.*;
+import java.nio.file.Files;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
+/**
+ * CRUD над CSV файлами с персонажами.
+ *
+ * В режиме ConcurrencyMode.CONCURRENT менеджером можно пользоваться из нескольких потоков:
+ * readCharacter, readAllCharacters и countCharacters читают опубликованный неизменяемый снимок
+ * без блокировок, а изменения, поиск по индексам и счётчики идут под CharacterFileLock файла —
+ * записи в разные файлы не мешают друг другу. Под замком хранилище сверяется с диском,
+ * поэтому id выдаются без повторов даже между процессами.
+ */
 public class CharacterCrudManager {
+    // Имя встроенного счётчика видов, не пересекается с именами из countBy
+    private static final String SPECIES_COUNTER = "#species";
 
     private final CsvReader csvReader;
+    private final PersistenceMode persistenceMode;
+    private final long compactionThreshold;
+    private final ConcurrencyMode concurrencyMode;
+
+    // Загруженные в память файлы: путь -> хранилище с индексом по id
+    private final Map<String, CharacterStore> stores = new ConcurrentHashMap<>();
 
     public CharacterCrudManager() {
+        this(PersistenceMode.REWRITE);
+    }
+
+    public CharacterCrudManager(PersistenceMode persistenceMode) {
+        this(persistenceMode, CharacterJournal.DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * compactionThreshold — размер журнала в байтах, после которого он сворачивается в CSV
+     * (используется только в режиме JOURNAL)
+     */
+    public CharacterCrudManager(PersistenceMode persistenceMode, long compactionThreshold) {
+        this(persistenceMode, compactionThreshold, ConcurrencyMode.SINGLE_THREADED);
+    }
+
+    public CharacterCrudManager(PersistenceMode persistenceMode, ConcurrencyMode concurrencyMode) {
+        this(persistenceMode, CharacterJournal.DEFAULT_COMPACTION_THRESHOLD, concurrencyMode);
+    }
+
+    public CharacterCrudManager(PersistenceMode persistenceMode, long compactionThreshold,
+                                ConcurrencyMode concurrencyMode) {
         this.csvReader = new CsvReader();
+        this.persistenceMode = persistenceMode;
+        this.compactionThreshold = compactionThreshold;
+        this.concurrencyMode = concurrencyMode;
     }
 
     /**
@@ -20,26 +69,20 @@ public class CharacterCrudManager {
      * Автоматически проставляет ID и дату создания, если их нет.
      */
     public void createCharacter(String filePath, RickMortyCharacter character) throws IOException {
-        // Считываем текущий список
-        List<RickMortyCharacter> characters = csvReader.readCharacters(filePath);
-
+        withStore(filePath, store -> {
+            // Следующий id берём из закэшированного максимума, без перечитывания файла
+            character.setId(store.nextId());
 
-        int maxId = 0;
-        for (RickMortyCharacter c : characters) {
-            if (c.getId() > maxId) {
-                maxId = c.getId();
+            // Если дата создания не задана — ставим текущую
+            if (character.getCreated() == null) {
+                character.setCreated(LocalDateTime.now());
             }
-        }
-        character.setId(maxId + 1);
-
-        // Если дата создания не задана — ставим текущую
-        if (character.getCreated() == null) {
-            character.setCreated(LocalDateTime.now());
-        }
 
-        // Добавляем и сохраняем всё обратно
-        characters.add(character);
-        saveAllCharacters(filePath, characters);
+            // Добавляем и сохраняем
+            applyUpsert(store, character);
+            commit(filePath, store);
+            return null;
+        });
 
         System.out.println("Персонаж добавлен. Новый ID: " + character.getId());
     }
@@ -49,21 +92,71 @@ public class CharacterCrudManager {
      * Возвращает Optional.empty(), если не найден.
      */
     public Optional<RickMortyCharacter> readCharacter(String filePath, int id) throws IOException {
-        List<RickMortyCharacter> characters = csvReader.readCharacters(filePath);
-
-        for (RickMortyCharacter character : characters) {
-            if (character.getId() == id) {
-                return Optional.of(character);
-            }
-        }
-        return Optional.empty();
+        // Отдаём копию, чтобы правки вызывающего кода не попадали в хранилище в обход updateCharacter
+        return view(filePath).findById(id).map(RickMortyCharacter::new);
     }
 
     /**
      * ВЕРНУТЬ всех персонажей из файла.
      */
     public List<RickMortyCharacter> readAllCharacters(String filePath) throws IOException {
-        return csvReader.readCharacters(filePath);
+        return copies(view(filePath).findAll());
+    }
+
+    /**
+     * НАЙТИ персонажей по виду. Поиск идёт по индексу, результат в порядке строк файла
+     */
+    public List<RickMortyCharacter> findBySpecies(String filePath, String species) throws IOException {
+        return copies(withStore(filePath, store -> store.findBySpecies(species)));
+    }
+
+    /**
+     * НАЙТИ персонажей по статусу (Alive, Dead, unknown)
+     */
+    public List<RickMortyCharacter> findByStatus(String filePath, String status) throws IOException {
+        return copies(withStore(filePath, store -> store.findByStatus(status)));
+    }
+
+    /**
+     * НАЙТИ персонажей по полу
+     */
+    public List<RickMortyCharacter> findByGender(String filePath, String gender) throws IOException {
+        return copies(withStore(filePath, store -> store.findByGender(gender)));
+    }
+
+    /**
+     * НАЙТИ персонажей, чьё имя начинается с prefix (без учёта регистра)
+     */
+    public List<RickMortyCharacter> findByNamePrefix(String filePath, String prefix) throws IOException {
+        return copies(withStore(filePath, store -> store.findByNamePrefix(prefix)));
+    }
+
+    /**
+     * КОЛИЧЕСТВО персонажей в файле
+     */
+    public int countCharacters(String filePath) throws IOException {
+        return view(filePath).size();
+    }
+
+    /**
+     * Количество персонажей по видам в порядке первого появления — то же, что
+     * SpeciesProcessor.countSpeciesInOrder, но без пересчёта: счётчики обновляются
+     * при каждом добавлении, изменении и удалении
+     */
+    public LinkedHashMap<String, Integer> countSpecies(String filePath) throws IOException {
+        LinkedHashMap<String, Integer> speciesCount = new LinkedHashMap<>();
+        withStore(filePath, store -> store.counts(SPECIES_COUNTER, RickMortyCharacter::getSpecies))
+                .forEach((species, count) -> speciesCount.put((String) species, count));
+        return speciesCount;
+    }
+
+    /**
+     * Произвольный счётчик по ключу key, зарегистрированный под именем name.
+     * Первый вызов считает файл целиком, следующие отдают поддерживаемые на лету значения
+     */
+    public LinkedHashMap<Object, Integer> countBy(String filePath, String name,
+                                                  Function<RickMortyCharacter, ?> key) throws IOException {
+        return withStore(filePath, store -> store.counts(name, key));
     }
 
     /**
@@ -71,22 +164,17 @@ public class CharacterCrudManager {
      * Возвращает true, если обновление прошло успешно.
      */
     public boolean updateCharacter(String filePath, RickMortyCharacter updatedCharacter) throws IOException {
-        List<RickMortyCharacter> characters = csvReader.readCharacters(filePath);
         int targetId = updatedCharacter.getId();
-        boolean found = false;
-
-        // Проходим по списку и ищем совпадение по ID
-        for (int i = 0; i < characters.size(); i++) {
-            RickMortyCharacter current = characters.get(i);
-            if (current.getId() == targetId) {
-                characters.set(i, updatedCharacter);
-                found = true;
-                break;
+        boolean found = withStore(filePath, store -> {
+            if (!store.contains(targetId)) {
+                return false;
             }
-        }
+            applyUpsert(store, updatedCharacter);
+            commit(filePath, store);
+            return true;
+        });
 
         if (found) {
-            saveAllCharacters(filePath, characters);
             System.out.println(" Персонаж #" + targetId + " обновлён");
         } else {
             System.out.println(" Персонаж #" + targetId + " не найден, обновление отменено");
@@ -100,20 +188,15 @@ public class CharacterCrudManager {
      * Возвращает true, если удаление прошло успешно.
      */
     public boolean deleteCharacter(String filePath, int id) throws IOException {
-        List<RickMortyCharacter> characters = csvReader.readCharacters(filePath);
-
-        // Простой и понятный способ удаления
-        boolean removed = false;
-        for (int i = 0; i < characters.size(); i++) {
-            if (characters.get(i).getId() == id) {
-                characters.remove(i);
-                removed = true;
-                break;
+        boolean removed = withStore(filePath, store -> {
+            if (!applyDelete(store, id)) {
+                return false;
             }
-        }
+            commit(filePath, store);
+            return true;
+        });
 
         if (removed) {
-            saveAllCharacters(filePath, characters);
             System.out.println("Персонаж #" + id + " удалён");
         } else {
             System.out.println("Персонаж #" + id + " не найден");
@@ -122,23 +205,212 @@ public class CharacterCrudManager {
         return removed;
     }
 
+    /**
+     * ДОБАВИТЬ пачку персонажей: id раздаются подряд, изменения пишутся на диск один раз.
+     * Результаты идут в том же порядке, что и персонажи
+     */
+    public List<BatchResult> createCharacters(String filePath, Collection<RickMortyCharacter> characters)
+            throws IOException {
+        List<BatchResult> results = new ArrayList<>(characters.size());
+        LocalDateTime now = LocalDateTime.now();
+
+        withStore(filePath, store -> {
+            for (RickMortyCharacter character : characters) {
+                character.setId(store.nextId());
+                if (character.getCreated() == null) {
+                    character.setCreated(now);
+                }
+                applyUpsert(store, character);
+                results.add(new BatchResult(character.getId(), BatchResult.Status.CREATED));
+            }
+
+            if (!results.isEmpty()) {
+                commit(filePath, store);
+            }
+            return null;
+        });
+        System.out.println("Добавлено персонажей: " + results.size());
+        return results;
+    }
+
+    /**
+     * ОБНОВИТЬ пачку персонажей по их id, запись на диск одна на всю пачку
+     */
+    public List<BatchResult> updateCharacters(String filePath, Collection<RickMortyCharacter> characters)
+            throws IOException {
+        List<BatchResult> results = new ArrayList<>(characters.size());
+
+        int updated = withStore(filePath, store -> {
+            int changed = 0;
+            for (RickMortyCharacter character : characters) {
+                if (store.contains(character.getId())) {
+                    applyUpsert(store, character);
+                    results.add(new BatchResult(character.getId(), BatchResult.Status.UPDATED));
+                    changed++;
+                } else {
+                    results.add(new BatchResult(character.getId(), BatchResult.Status.NOT_FOUND));
+                }
+            }
+
+            if (changed > 0) {
+                commit(filePath, store);
+            }
+            return changed;
+        });
+        System.out.println("Обновлено персонажей: " + updated + " из " + results.size());
+        return results;
+    }
+
+    /**
+     * УДАЛИТЬ пачку персонажей по id, запись на диск одна на всю пачку
+     */
+    public List<BatchResult> deleteCharacters(String filePath, int[] ids) throws IOException {
+        List<BatchResult> results = new ArrayList<>(ids.length);
+
+        int deleted = withStore(filePath, store -> {
+            int removed = 0;
+            for (int id : ids) {
+                if (applyDelete(store, id)) {
+                    results.add(new BatchResult(id, BatchResult.Status.DELETED));
+                    removed++;
+                } else {
+                    results.add(new BatchResult(id, BatchResult.Status.NOT_FOUND));
+                }
+            }
+
+            if (removed > 0) {
+                commit(filePath, store);
+            }
+            return removed;
+        });
+        System.out.println("Удалено персонажей: " + deleted + " из " + results.size());
+        return results;
+    }
+
+    private static List<RickMortyCharacter> copies(List<RickMortyCharacter> characters) {
+        List<RickMortyCharacter> copies = new ArrayList<>(characters.size());
+        for (RickMortyCharacter character : characters) {
+            copies.add(new RickMortyCharacter(character));
+        }
+        return copies;
+    }
+
+    /**
+     * Хранилище для файла: загружается при первом обращении
+     * и перечитывается, только если файл изменили извне
+     */
+    private CharacterStore store(String filePath) throws IOException {
+        CharacterStore store = storeFor(filePath);
+        store.refreshIfChanged();
+        return store;
+    }
+
+    private CharacterStore storeFor(String filePath) {
+        boolean shared = concurrencyMode == ConcurrencyMode.CONCURRENT;
+        return stores.computeIfAbsent(filePath, path -> new CharacterStore(path, csvReader,
+                persistenceMode == PersistenceMode.JOURNAL
+                        ? new CharacterJournal(path, csvReader, compactionThreshold, shared)
+                        : null,
+                shared ? CharacterFileLock.forFile(path) : null));
+    }
+
+    /**
+     * Выполнить action над свежим хранилищем файла. В режиме CONCURRENT — под замком файла,
+     * так что действие видит и собственные, и чужие (других процессов) записи целиком
+     */
+    private <T> T withStore(String filePath, StoreAction<T> action) throws IOException {
+        if (concurrencyMode == ConcurrencyMode.SINGLE_THREADED) {
+            return action.apply(store(filePath));
+        }
+        CharacterFileLock lock = CharacterFileLock.forFile(filePath);
+        lock.lock();
+        try {
+            return action.apply(store(filePath));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Данные файла только для чтения. В режиме CONCURRENT это опубликованный снимок:
+     * пока файл не менялся, он отдаётся без блокировок, иначе перестраивается под замком
+     */
+    private CharacterView view(String filePath) throws IOException {
+        if (concurrencyMode == ConcurrencyMode.SINGLE_THREADED) {
+            return store(filePath);
+        }
+        CharacterStore store = storeFor(filePath);
+        CharacterView view = store.publishedView();
+        if (view != null && store.isCurrent()) {
+            return view;
+        }
+        return withStore(filePath, CharacterStore::publishView);
+    }
+
+    /**
+     * Изменение в памяти (копией) и, в режиме JOURNAL, запись в буфер журнала
+     */
+    private void applyUpsert(CharacterStore store, RickMortyCharacter character) {
+        RickMortyCharacter copy = new RickMortyCharacter(character);
+        store.put(copy);
+        if (store.journal() != null) {
+            store.journal().upsert(copy);
+        }
+    }
+
+    private boolean applyDelete(CharacterStore store, int id) {
+        boolean removed = store.remove(id).isPresent();
+        if (removed && store.journal() != null) {
+            store.journal().delete(id);
+        }
+        return removed;
+    }
+
+    /**
+     * Зафиксировать изменения на диске: в режиме REWRITE перезаписать CSV,
+     * в режиме JOURNAL дописать журнал (и при необходимости запустить его сжатие).
+     * Если запись не удалась, хранилище сбрасывается и при следующем обращении перечитает файлы
+     */
+    private void commit(String filePath, CharacterStore store) throws IOException {
+        try {
+            CharacterJournal journal = store.journal();
+            if (journal == null) {
+                // Снимок описывает прежний CSV: при записи того же размера в тот же тик часов
+                // его отметка совпала бы с новым файлом
+                Files.deleteIfExists(CharacterSnapshot.pathFor(filePath));
+                saveAllCharacters(filePath, store.findAll());
+                store.markSynced();
+            } else {
+                journal.flush();
+                store.markSynced();
+                journal.compactIfNeeded(store);
+            }
+        } catch (IOException e) {
+            store.invalidate();
+            throw e;
+        }
+    }
+
     /**
      * Вспомогательный метод: записать весь список персонажей в CSV.
-     * Перезаписывает файл полностью.
+     * Перезаписывает файл полностью (используется и при сжатии журнала).
      */
-    private void saveAllCharacters(String filePath, List<RickMortyCharacter> characters) throws IOException {
+    static void saveAllCharacters(String filePath, List<RickMortyCharacter> characters) throws IOException {
         //  try-with-resources, чтобы файл точно закрылся
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
+        try (CsvWriter writer = new CsvWriter(filePath)) {
 
             // Пишем шапку таблицы
-            writer.write("id,name,status,species,type,gender,origin/name,location/name,created");
-            writer.newLine();
+            writer.writeHeader();
 
             // Пишем каждую строку
             for (RickMortyCharacter character : characters) {
-                writer.write(character.toCsvLine());
-                writer.newLine();
+                writer.writeCharacter(character);
             }
         }
     }
-}
\ No newline at end of file
+
+    @FunctionalInterface
+    private interface StoreAction<T> {
+        T apply(CharacterStore store) throws IOException;
+    }
+}
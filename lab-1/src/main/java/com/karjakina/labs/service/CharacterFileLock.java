@@ -0,0 +1,136 @@
+package com.karjakina.labs.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Замок на изменение CSV файла: characters.csv.lock.
+ *
+ * Внутри JVM потоки выстраиваются в очередь на ReentrantLock, общий для всех менеджеров
+ * с этим файлом; владелец замка дополнительно берёт FileChannel.lock, чтобы с файлом
+ * согласованно работали и другие процессы. Блокировки FileChannel.lock принадлежат всей JVM
+ * (повторный захват из другого потока бросает OverlappingFileLockException), поэтому
+ * без внутреннего замка не обойтись.
+ *
+ * В первых 8 байтах файла замка лежит поколение — счётчик записей в CSV и журнал.
+ * Размер и время изменения файла не ловят перезапись того же размера в пределах
+ * одного тика часов файловой системы, а поколение меняется при каждой записи.
+ * FileChannel.lock берётся на остаток файла после поколения, так что поколение
+ * можно читать без замка.
+ */
+final class CharacterFileLock {
+
+    private static final Map<Path, CharacterFileLock> LOCKS = new ConcurrentHashMap<>();
+    private static final int GENERATION_BYTES = Long.BYTES;
+
+    private final Path lockPath;
+    private final ReentrantLock threadLock = new ReentrantLock();
+
+    // Канал к файлу замка открывается при первом захвате и дальше не закрывается
+    private FileChannel channel;
+    private FileLock fileLock;
+    // Канал для чтения поколения без замка; переоткрывается, если его закрыло прерывание потока
+    private volatile FileChannel readChannel;
+
+    private CharacterFileLock(Path lockPath) {
+        this.lockPath = lockPath;
+    }
+
+    /**
+     * Замок для CSV файла filePath (один на файл в пределах JVM)
+     */
+    static CharacterFileLock forFile(String filePath) {
+        Path csvPath = Path.of(filePath).toAbsolutePath().normalize();
+        return LOCKS.computeIfAbsent(csvPath,
+                path -> new CharacterFileLock(path.resolveSibling(path.getFileName() + ".lock")));
+    }
+
+    /**
+     * Захватить замок: сначала среди потоков JVM, затем между процессами.
+     * Повторный захват тем же потоком разрешён
+     */
+    void lock() throws IOException {
+        threadLock.lock();
+        if (threadLock.getHoldCount() > 1) {
+            return;
+        }
+        try {
+            // Канал мог закрыться, если поток прервали во время ожидания FileChannel.lock
+            if (channel == null || !channel.isOpen()) {
+                channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+            }
+            fileLock = channel.lock(GENERATION_BYTES, Long.MAX_VALUE - GENERATION_BYTES, false);
+        } catch (IOException | RuntimeException e) {
+            threadLock.unlock();
+            throw e;
+        }
+    }
+
+    void unlock() throws IOException {
+        try {
+            if (threadLock.getHoldCount() == 1 && fileLock != null) {
+                FileLock held = fileLock;
+                fileLock = null;
+                held.release();
+            }
+        } finally {
+            threadLock.unlock();
+        }
+    }
+
+    /**
+     * Текущее поколение файла (0, если записей ещё не было). Замок не нужен
+     */
+    long readGeneration() throws IOException {
+        try {
+            return readGeneration(readChannel());
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (ClosedChannelException e) {
+            readChannel = null;
+            return readGeneration(readChannel());
+        }
+    }
+
+    /**
+     * Отметить запись в файл новым поколением; вызывать под замком после записи
+     */
+    void bumpGeneration() throws IOException {
+        if (!threadLock.isHeldByCurrentThread() || fileLock == null) {
+            throw new IllegalStateException("Поколение меняется только под замком " + lockPath);
+        }
+        ByteBuffer next = ByteBuffer.allocate(GENERATION_BYTES).putLong(0, readGeneration(channel) + 1);
+        while (next.hasRemaining()) {
+            channel.write(next, next.position());
+        }
+    }
+
+    private synchronized FileChannel readChannel() throws IOException {
+        FileChannel current = readChannel;
+        if (current == null || !current.isOpen()) {
+            current = FileChannel.open(lockPath, StandardOpenOption.READ);
+            readChannel = current;
+        }
+        return current;
+    }
+
+    private static long readGeneration(FileChannel channel) throws IOException {
+        ByteBuffer generation = ByteBuffer.allocate(GENERATION_BYTES);
+        while (generation.hasRemaining()) {
+            if (channel.read(generation, generation.position()) < 0) {
+                return 0; // Файл замка создан, но поколение ещё не записано
+            }
+        }
+        return generation.getLong(0);
+    }
+}
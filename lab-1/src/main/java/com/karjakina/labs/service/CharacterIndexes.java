@@ -0,0 +1,114 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Вторичные индексы персонажей одного хранилища.
+ *
+ * Хэш-индексы на равенство для species, status и gender и упорядоченный индекс по имени
+ * (без учёта регистра) для поиска по префиксу. Индексы хранят номера строк хранилища
+ * (см. CharacterStore): номера растут вместе с порядком строк файла, поэтому
+ * отсортированные номера — это и есть порядок файла, а повторяющиеся id не мешают.
+ */
+class CharacterIndexes {
+
+    private final Map<String, Set<Long>> bySpecies = new HashMap<>();
+    private final Map<String, Set<Long>> byStatus = new HashMap<>();
+    private final Map<String, Set<Long>> byGender = new HashMap<>();
+    private final TreeMap<String, Set<Long>> byName = new TreeMap<>();
+
+    /**
+     * Построить индексы по строкам хранилища (номер строки -> персонаж)
+     */
+    CharacterIndexes(Map<Long, RickMortyCharacter> rows) {
+        for (Map.Entry<Long, RickMortyCharacter> row : rows.entrySet()) {
+            index(row.getKey(), row.getValue());
+        }
+    }
+
+    /**
+     * В строку row добавлен (previous == null) или на её место поставлен персонаж
+     */
+    void onPut(long row, RickMortyCharacter previous, RickMortyCharacter current) {
+        if (previous != null) {
+            unindex(row, previous);
+        }
+        index(row, current);
+    }
+
+    void onRemove(long row, RickMortyCharacter removed) {
+        unindex(row, removed);
+    }
+
+    List<Long> findBySpecies(String species) {
+        return inFileOrder(bySpecies.get(species));
+    }
+
+    List<Long> findByStatus(String status) {
+        return inFileOrder(byStatus.get(status));
+    }
+
+    List<Long> findByGender(String gender) {
+        return inFileOrder(byGender.get(gender));
+    }
+
+    /**
+     * Строки персонажей, чьё имя начинается с prefix (без учёта регистра)
+     */
+    List<Long> findByNamePrefix(String prefix) {
+        String from = nameKey(prefix);
+        Set<Long> rows = new HashSet<>();
+        // Все ключи с данным префиксом лежат в диапазоне [prefix, prefix + Character.MAX_VALUE)
+        for (Set<Long> matched : byName.subMap(from, true, from + Character.MAX_VALUE, false).values()) {
+            rows.addAll(matched);
+        }
+        return inFileOrder(rows);
+    }
+
+    private void index(long row, RickMortyCharacter character) {
+        bySpecies.computeIfAbsent(character.getSpecies(), key -> new HashSet<>()).add(row);
+        byStatus.computeIfAbsent(character.getStatus(), key -> new HashSet<>()).add(row);
+        byGender.computeIfAbsent(character.getGender(), key -> new HashSet<>()).add(row);
+        if (character.getName() != null) {
+            byName.computeIfAbsent(nameKey(character.getName()), key -> new HashSet<>()).add(row);
+        }
+    }
+
+    private void unindex(long row, RickMortyCharacter character) {
+        removeFrom(bySpecies, character.getSpecies(), row);
+        removeFrom(byStatus, character.getStatus(), row);
+        removeFrom(byGender, character.getGender(), row);
+        if (character.getName() != null) {
+            removeFrom(byName, nameKey(character.getName()), row);
+        }
+    }
+
+    private static void removeFrom(Map<String, Set<Long>> index, String key, long row) {
+        Set<Long> rows = index.get(key);
+        if (rows != null && rows.remove(row) && rows.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static List<Long> inFileOrder(Set<Long> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> result = new ArrayList<>(rows);
+        result.sort(null);
+        return result;
+    }
+
+    private static String nameKey(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,360 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал изменений (write-ahead log) рядом с CSV файлом: characters.csv.wal.
+ *
+ * Каждое изменение дописывается в конец журнала вместо перезаписи всего CSV.
+ * Формат записи: [длина данных int][операция byte][данные UTF-8][CRC32 int],
+ * для U (добавление/обновление) данные — строка toCsvLine, для D (удаление) — id.
+ * При загрузке журнал проигрывается поверх CSV; оборванная при сбое последняя запись
+ * распознаётся по длине и CRC и отбрасывается.
+ *
+ * Когда журнал вырастает больше порога, он переименовывается в .wal.compacting,
+ * а в фоне пишется свежий CSV во временный файл, который атомарно заменяет основной.
+ * Повторно проигрывать уже учтённые записи нельзя: D удаляет следующий дубликат id.
+ * Поэтому перед подменой CSV в каждый сворачиваемый журнал дописывается запись S
+ * с размером и CRC32 нового CSV. Если при загрузке S совпадает с текущим CSV, сбой был
+ * между подменой и удалением журнала: записи до S уже в CSV и пропускаются.
+ *
+ * В общем режиме (shared) журнал дописывают несколько процессов под CharacterFileLock:
+ * канал закрывается после каждого flush, а сжатие идёт синхронно, пока замок ещё у нас, —
+ * иначе другой процесс мог бы писать в уже переименованный файл.
+ */
+class CharacterJournal {
+    static final long DEFAULT_COMPACTION_THRESHOLD = 4L << 20;   // 4 MB
+
+    private static final byte UPSERT = 'U';
+    private static final byte DELETE = 'D';
+    private static final byte SNAPSHOT = 'S';
+    private static final int RECORD_OVERHEAD = Integer.BYTES + 1 + Integer.BYTES;
+
+    private final Path csvPath;
+    private final Path journalPath;
+    private final Path compactingPath;
+    private final Path tempPath;
+    private final CsvReader csvReader;
+    private final long compactionThreshold;
+    private final boolean shared;
+
+    // Записи, ещё не сброшенные на диск вызовом flush
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    private FileChannel channel;
+    private ExecutorService compactor;
+    private Future<?> compaction;
+    // При проигрывании найден журнал, уже свёрнутый в текущий CSV
+    private boolean foldedJournal;
+
+    CharacterJournal(String csvFilePath, CsvReader csvReader, long compactionThreshold) {
+        this(csvFilePath, csvReader, compactionThreshold, false);
+    }
+
+    CharacterJournal(String csvFilePath, CsvReader csvReader, long compactionThreshold, boolean shared) {
+        this.csvPath = Path.of(csvFilePath);
+        this.journalPath = Path.of(csvFilePath + ".wal");
+        this.compactingPath = Path.of(csvFilePath + ".wal.compacting");
+        this.tempPath = Path.of(csvFilePath + ".tmp");
+        this.csvReader = csvReader;
+        this.compactionThreshold = compactionThreshold;
+        this.shared = shared;
+    }
+
+    /**
+     * Проиграть журнал поверх уже загруженного из CSV хранилища.
+     * Сначала журнал незавершённого сжатия, затем текущий
+     */
+    synchronized void replay(CharacterStore store) throws IOException {
+        replayFile(compactingPath, store);
+        replayFile(journalPath, store);
+    }
+
+    /**
+     * Нужно ли довести до конца сжатие, прерванное сбоем (остался .wal.compacting)
+     */
+    synchronized boolean hasInterruptedCompaction() {
+        return (compaction == null || compaction.isDone()) && (foldedJournal || Files.exists(compactingPath));
+    }
+
+    void upsert(RickMortyCharacter character) {
+        append(UPSERT, character.toCsvLine());
+    }
+
+    void delete(int id) {
+        append(DELETE, String.valueOf(id));
+    }
+
+    /**
+     * Дописать накопленные записи в журнал одной операцией записи и сбросить на диск
+     */
+    synchronized void flush() throws IOException {
+        if (pending.size() == 0) {
+            return;
+        }
+        FileChannel journal = channel();
+        ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+        pending.reset();
+        while (buffer.hasRemaining()) {
+            journal.write(buffer);
+        }
+        journal.force(false);
+        if (shared) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Текущий размер файла журнала (0, если его нет)
+     */
+    long size() throws IOException {
+        try {
+            return Files.size(journalPath);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Запустить фоновое сжатие, если журнал перерос порог и предыдущее сжатие закончено.
+     * Текущее состояние хранилища станет новым CSV
+     */
+    synchronized void compactIfNeeded(CharacterStore store) throws IOException {
+        if (shared) {
+            if (size() >= compactionThreshold) {
+                compactNow(store.findAll());
+                store.markSynced();
+            }
+            return;
+        }
+        if (channel == null || channel.size() < compactionThreshold) {
+            return;
+        }
+        if (compaction != null && !compaction.isDone()) {
+            return;
+        }
+        if (Files.exists(compactingPath)) {
+            // Прошлое сжатие не удалось — ждём восстановления при следующей загрузке
+            return;
+        }
+
+        // Всё, что уже в снимке, уходит в .wal.compacting; новые записи пойдут в свежий журнал
+        List<RickMortyCharacter> snapshot = store.findAll();
+        channel.close();
+        channel = null;
+        Files.move(journalPath, compactingPath, StandardCopyOption.ATOMIC_MOVE);
+        // Журнал опустел не извне — отметка хранилища должна это учесть
+        store.markSynced();
+
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "character-journal-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        compaction = compactor.submit(() -> {
+            try {
+                writeSnapshot(snapshot, compactingPath);
+                // CSV подменили мы сами — хранилищу не нужно его перечитывать
+                store.markSynced();
+                Files.delete(compactingPath);
+            } catch (IOException e) {
+                System.err.println("Не удалось сжать журнал " + journalPath + ": " + e.getMessage());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Синхронно свернуть состояние в CSV и очистить оба журнала (восстановление после сбоя)
+     */
+    synchronized void compactNow(List<RickMortyCharacter> snapshot) throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        writeSnapshot(snapshot, compactingPath, journalPath);
+        Files.deleteIfExists(compactingPath);
+        Files.deleteIfExists(journalPath);
+        foldedJournal = false;
+    }
+
+    /**
+     * Дождаться окончания фонового сжатия (если оно идёт)
+     */
+    void awaitCompaction() throws IOException {
+        Future<?> running;
+        synchronized (this) {
+            running = compaction;
+        }
+        if (running == null) {
+            return;
+        }
+        try {
+            running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Ожидание сжатия журнала прервано", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Сжатие журнала завершилось с ошибкой", e.getCause());
+        }
+    }
+
+    /**
+     * Новый CSV пишется во временный файл и атомарно подменяет основной.
+     * До подмены в каждый из journals (если он есть) дописывается отметка S этого CSV,
+     * удалить журналы после вызова должен вызывающий
+     */
+    void writeSnapshot(List<RickMortyCharacter> snapshot, Path... journals) throws IOException {
+        CharacterCrudManager.saveAllCharacters(tempPath.toString(), snapshot);
+        try (FileChannel written = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+            written.force(true);
+        }
+        byte[] stamp = encode(SNAPSHOT, stampOf(tempPath));
+        for (Path journal : journals) {
+            if (Files.exists(journal)) {
+                try (FileChannel out = FileChannel.open(journal, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    out.write(ByteBuffer.wrap(stamp));
+                    out.force(false);
+                }
+            }
+        }
+        // Прежний двоичный снимок мог бы совпасть с новым CSV по размеру и времени — удаляем
+        Files.deleteIfExists(CharacterSnapshot.pathFor(csvPath.toString()));
+        try {
+            Files.move(tempPath, csvPath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, csvPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private synchronized void append(byte operation, String data) {
+        pending.writeBytes(encode(operation, data));
+    }
+
+    private static byte[] encode(byte operation, String data) {
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(operation);
+        crc.update(bytes);
+        return ByteBuffer.allocate(RECORD_OVERHEAD + bytes.length)
+                .putInt(bytes.length)
+                .put(operation)
+                .put(bytes)
+                .putInt((int) crc.getValue())
+                .array();
+    }
+
+    /**
+     * Отметка содержимого файла: размер и CRC32
+     */
+    private static String stampOf(Path path) throws IOException {
+        CRC32 crc = new CRC32();
+        long size = 0;
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+                size += read;
+            }
+        }
+        return size + ":" + Long.toHexString(crc.getValue());
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(journalPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    private void replayFile(Path path, CharacterStore store) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+
+        // Первый проход: проверяем записи и ищем последнюю отметку S текущего CSV
+        String csvStamp = null;
+        int firstUnapplied = 0;
+        while (data.remaining() >= RECORD_OVERHEAD) {
+            int start = data.position();
+            int length = data.getInt();
+            if (length < 0 || length > data.remaining() - 1 - Integer.BYTES) {
+                data.position(start);
+                break;
+            }
+            byte operation = data.get();
+            CRC32 crc = new CRC32();
+            crc.update(operation);
+            crc.update(data.array(), data.position(), length);
+            data.position(data.position() + length);
+            if ((int) crc.getValue() != data.getInt()) {
+                data.position(start);
+                break;
+            }
+
+            if (operation == SNAPSHOT) {
+                if (csvStamp == null) {
+                    csvStamp = stampOf(csvPath);
+                }
+                if (csvStamp.equals(new String(data.array(), start + Integer.BYTES + 1, length, StandardCharsets.UTF_8))) {
+                    // Всё до отметки уже в CSV
+                    firstUnapplied = data.position();
+                    foldedJournal = true;
+                }
+            }
+        }
+        int end = data.position();
+
+        // Второй проход: применяем целые записи после отметки
+        for (int position = firstUnapplied; position < end; ) {
+            int length = data.getInt(position);
+            byte operation = data.get(position + Integer.BYTES);
+            String text = new String(data.array(), position + Integer.BYTES + 1, length, StandardCharsets.UTF_8);
+            position += RECORD_OVERHEAD + length;
+
+            if (operation == UPSERT) {
+                char[] chars = text.toCharArray();
+                CsvTokenizer tokenizer = new CsvTokenizer(chars, chars.length);
+                if (tokenizer.next()) {
+                    store.put(csvReader.toCharacter(tokenizer));
+                }
+            } else if (operation == DELETE) {
+                store.remove(Integer.parseInt(text));
+            }
+        }
+
+        if (data.hasRemaining()) {
+            // Хвост оборван сбоем посреди записи — отрезаем, чтобы дописывать после целых записей
+            System.err.println("Журнал " + path + ": отброшена оборванная запись (" + data.remaining() + " байт)");
+            try (FileChannel truncate = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                truncate.truncate(end);
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.karjakina.labs.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Двоичный снимок персонажей рядом с CSV файлом: characters.csv.snapshot.
+ *
+ * Формат (big-endian):
+ *   заголовок: магическое число "RMCS", версия, размер и время изменения исходного CSV, число строк;
+ *   словари шести закодированных колонок: количество и значения (длина + UTF-8);
+ *   имена: длина + UTF-8, длина -1 для null;
+ *   колонки фиксированной ширины: id int[], коды шести колонок int[], created long[] (мкс эпохи);
+ *   наносекунды сверх микросекунд: число строк и short[], либо 0, если их нет.
+ *
+ * Снимок отображается в память и читается одним проходом, без разбора текста и дат.
+ * Если размер или время изменения CSV не совпадают с заголовком, снимок считается устаревшим.
+ * Повреждённый снимок (обрезан, коды вне словаря, лишние байты) тоже считается устаревшим.
+ */
+class CharacterSnapshot {
+    private static final int MAGIC = 0x524D4353;   // "RMCS"
+    private static final int VERSION = 2;
+    private static final int CODED_COLUMNS = 6;
+
+    private CharacterSnapshot() {
+    }
+
+    static Path pathFor(String csvFilePath) {
+        return Path.of(csvFilePath + ".snapshot");
+    }
+
+    /**
+     * Записать снимок во временный файл, сбросить на диск и атомарно подменить им прежний
+     */
+    static void write(Path snapshot, CharacterColumns columns, long sourceSize, long sourceModified)
+            throws IOException {
+        Path temp = Path.of(snapshot + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sourceSize);
+            out.writeLong(sourceModified);
+            int rows = columns.size();
+            out.writeInt(rows);
+
+            CharacterColumns.CodedColumn[] coded = codedColumns(columns);
+            for (CharacterColumns.CodedColumn column : coded) {
+                StringDictionary dictionary = column.dictionary();
+                out.writeInt(dictionary.size());
+                for (int code = 0; code < dictionary.size(); code++) {
+                    writeString(out, dictionary.value(code));
+                }
+            }
+            for (String name : columns.names()) {
+                writeString(out, name);
+            }
+
+            for (int id : columns.ids()) {
+                out.writeInt(id);
+            }
+            for (CharacterColumns.CodedColumn column : coded) {
+                for (int code : column.codes()) {
+                    out.writeInt(code);
+                }
+            }
+            for (long created : columns.created()) {
+                out.writeLong(created);
+            }
+            short[] createdNanos = columns.createdNanos();
+            if (createdNanos == null) {
+                out.writeInt(0);
+            } else {
+                out.writeInt(rows);
+                for (short nanos : createdNanos) {
+                    out.writeShort(nanos);
+                }
+            }
+        }
+        // Без fsync после сбоя под именем снимка мог бы оказаться недописанный файл
+        try (FileChannel written = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            written.force(true);
+        }
+        try {
+            Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Загрузить снимок, если он есть и соответствует исходному CSV, иначе null
+     */
+    static CharacterColumns read(Path snapshot, long sourceSize, long sourceModified) throws IOException {
+        if (!Files.exists(snapshot)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return null; // Такой снимок одним отображением не прочитать — читаем CSV
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (data.remaining() < 28 || data.getInt() != MAGIC || data.getInt() != VERSION
+                    || data.getLong() != sourceSize || data.getLong() != sourceModified) {
+                return null;
+            }
+            int rows = data.getInt();
+
+            StringDictionary[] dictionaries = new StringDictionary[CODED_COLUMNS];
+            for (int i = 0; i < CODED_COLUMNS; i++) {
+                StringDictionary dictionary = new StringDictionary();
+                int count = data.getInt();
+                for (int code = 0; code < count; code++) {
+                    dictionary.code(readString(data));
+                }
+                dictionaries[i] = dictionary;
+            }
+            String[] names = new String[rows];
+            for (int row = 0; row < rows; row++) {
+                names[row] = readString(data);
+            }
+
+            int[] ids = new int[rows];
+            data.asIntBuffer().get(ids);
+            data.position(data.position() + rows * Integer.BYTES);
+
+            int[][] codes = new int[CODED_COLUMNS][rows];
+            for (int i = 0; i < CODED_COLUMNS; i++) {
+                data.asIntBuffer().get(codes[i]);
+                data.position(data.position() + rows * Integer.BYTES);
+                if (!codesInRange(codes[i], dictionaries[i].size())) {
+                    return null;
+                }
+            }
+            long[] created = new long[rows];
+            data.asLongBuffer().get(created);
+            data.position(data.position() + rows * Long.BYTES);
+
+            short[] createdNanos = null;
+            int nanosCount = data.getInt();
+            if (nanosCount == rows && rows > 0) {
+                createdNanos = new short[rows];
+                data.asShortBuffer().get(createdNanos);
+                data.position(data.position() + rows * Short.BYTES);
+                for (short nanos : createdNanos) {
+                    if (nanos < 0 || nanos >= 1_000) {
+                        return null;
+                    }
+                }
+            } else if (nanosCount != 0) {
+                return null;
+            }
+            if (data.hasRemaining()) {
+                return null;
+            }
+
+            CharacterColumns.CodedColumn[] coded = new CharacterColumns.CodedColumn[CODED_COLUMNS];
+            for (int i = 0; i < CODED_COLUMNS; i++) {
+                coded[i] = new CharacterColumns.CodedColumn(codes[i], dictionaries[i]);
+            }
+            return new CharacterColumns(ids, names, coded[0], coded[1], coded[2], coded[3], coded[4], coded[5],
+                    created, createdNanos);
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            // Снимок обрезан или повреждён — читаем CSV
+            return null;
+        }
+    }
+
+    /**
+     * Каждый код — NULL_CODE или номер значения в словаре колонки
+     */
+    private static boolean codesInRange(int[] codes, int dictionarySize) {
+        for (int code : codes) {
+            if (code != StringDictionary.NULL_CODE && (code < 0 || code >= dictionarySize)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static CharacterColumns.CodedColumn[] codedColumns(CharacterColumns columns) {
+        return new CharacterColumns.CodedColumn[]{
+                columns.status(), columns.species(), columns.type(),
+                columns.gender(), columns.origin(), columns.location()
+        };
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer data) {
+        int length = data.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
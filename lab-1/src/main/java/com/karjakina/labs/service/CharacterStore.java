@@ -0,0 +1,441 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Персонажи одного CSV файла в памяти.
+ *
+ * Файл читается один раз, дальше чтения обслуживаются из памяти, а следующий id берётся
+ * из закэшированного максимума. Если файл изменили извне (поменялись время изменения
+ * или размер), данные перечитываются при следующем обращении.
+ *
+ * Хранятся все строки файла в их порядке, в том числе строки с повторяющимся id
+ * (и строки без id — у них id 0): при перезаписи CSV ни одна из них не теряется.
+ * Как и прежний проход по списку, findById, обновление и удаление работают
+ * с первой строкой данного id; после удаления первой её место занимает следующая.
+ *
+ * Вторичные индексы (см. CharacterIndexes) и счётчики (см. IncrementalCounter) строятся
+ * при первом обращении и дальше обновляются вместе с put/remove.
+ *
+ * Само хранилище не потокобезопасно. Для чтения из других потоков (ConcurrencyMode.CONCURRENT)
+ * владелец замка публикует неизменяемый снимок publishView(); любое изменение его сбрасывает.
+ * Следующий снимок строится из прежнего: в нём меняются только затронутые id.
+ * Свежесть снимка на каждом чтении сверяется только по поколению файла замка
+ * (его меняет каждая запись через менеджер); время, размер CSV и журнала —
+ * не чаще раза в FILE_CHECK_INTERVAL_NANOS, чтобы ловить правки в обход замка.
+ */
+class CharacterStore implements CharacterView {
+    private static final long FILE_CHECK_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    // Сколько изменённых id снимок держит поверх общей карты, прежде чем собрать её заново
+    private static final int MAX_VIEW_CHANGES = 1024;
+
+    private final String filePath;
+    private final CsvReader csvReader;
+    // Журнал изменений в режиме PersistenceMode.JOURNAL, иначе null
+    private final CharacterJournal journal;
+    // Замок файла, общий с другими процессами (ConcurrencyMode.CONCURRENT), иначе null
+    private final CharacterFileLock fileLock;
+
+    // Строки файла по порядку: номер строки -> персонаж. Номера только растут,
+    // поэтому порядок номеров совпадает с порядком строк
+    private final LinkedHashMap<Long, RickMortyCharacter> rows = new LinkedHashMap<>();
+    // id -> номер первой строки с этим id
+    private final Map<Integer, Long> firstRowById = new HashMap<>();
+    // Остальные строки с тем же id, если id в файле повторяется (обычно пусто)
+    private final Map<Integer, TreeSet<Long>> duplicateRows = new HashMap<>();
+    private long nextRow;
+    private int maxId;
+    // Удалён максимальный id — maxId пересчитается при следующем nextId, а не на каждом удалении
+    private boolean maxIdStale;
+    private boolean loaded;
+    // null, пока не было ни одного поиска по вторичным полям
+    private CharacterIndexes indexes;
+    // Счётчики по имени, под которым их запросили
+    private final Map<String, IncrementalCounter> counters = new HashMap<>();
+
+    // Снимок для чтения без блокировок, null — если данные менялись после публикации
+    private volatile ReadView view;
+    // Последний опубликованный снимок и id, изменённые после него
+    private ReadView lastView;
+    private final Set<Integer> changedIds = new HashSet<>();
+
+    // Отметка файла, соответствующая данным в памяти
+    private FileTime modifiedTime;
+    private long size = -1;
+    private long journalSize = -1;
+    private volatile long generation = -1;
+    // Когда отметка последний раз сверялась с файлами целиком (System.nanoTime)
+    private volatile long filesCheckedAt;
+
+    CharacterStore(String filePath, CsvReader csvReader, CharacterJournal journal, CharacterFileLock fileLock) {
+        this.filePath = filePath;
+        this.csvReader = csvReader;
+        this.journal = journal;
+        this.fileLock = fileLock;
+    }
+
+    /**
+     * Перечитать файл, если он ещё не загружен или изменился с момента загрузки
+     */
+    void refreshIfChanged() throws IOException {
+        BasicFileAttributes attributes = readAttributes();
+        long journalBytes = journalSize();
+        long currentGeneration = readGeneration();
+        if (loaded && isSynced(attributes, journalBytes, currentGeneration)) {
+            return;
+        }
+        if (journal != null) {
+            // Своё фоновое сжатие подменяет CSV и журналы — перечитываем после него
+            journal.awaitCompaction();
+            attributes = readAttributes();
+            journalBytes = journalSize();
+        }
+
+        view = null;
+        lastView = null;
+        changedIds.clear();
+        rows.clear();
+        firstRowById.clear();
+        duplicateRows.clear();
+        nextRow = 0;
+        maxId = 0;
+        maxIdStale = false;
+        indexes = null;
+        counters.clear();
+        // Холодный старт через двоичный снимок, если он не устарел (см. CsvReader.loadCharacters)
+        for (RickMortyCharacter character : csvReader.loadCharacters(filePath)) {
+            appendRow(character);
+        }
+        if (journal != null) {
+            journal.replay(this);
+            if (journal.hasInterruptedCompaction()) {
+                // Прошлое сжатие не дошло до конца — сворачиваем всё в CSV сейчас
+                journal.compactNow(findAll());
+                if (fileLock != null) {
+                    fileLock.bumpGeneration();
+                }
+                attributes = readAttributes();
+                journalBytes = journalSize();
+                currentGeneration = readGeneration();
+            }
+        }
+        loaded = true;
+        remember(attributes, journalBytes, currentGeneration);
+    }
+
+    /**
+     * Соответствуют ли данные в памяти файлам на диске (можно звать из любого потока)
+     */
+    boolean isCurrent() throws IOException {
+        long now = System.nanoTime();
+        if (now - filesCheckedAt < FILE_CHECK_INTERVAL_NANOS) {
+            return readGeneration() == generation;
+        }
+        boolean current = isSynced(readAttributes(), journalSize(), readGeneration());
+        if (current) {
+            filesCheckedAt = now;
+        }
+        return current;
+    }
+
+    /**
+     * Опубликованный снимок или null, если его нужно построить заново
+     */
+    ReadView publishedView() {
+        return view;
+    }
+
+    /**
+     * Снимок текущего состояния для чтения без блокировок.
+     * Строится не чаще одного раза между изменениями; вызывать под замком записи
+     */
+    ReadView publishView() {
+        ReadView current = view;
+        if (current == null) {
+            if (lastView != null && lastView.changes.size() + changedIds.size() <= MAX_VIEW_CHANGES) {
+                Map<Integer, RickMortyCharacter> changes = new HashMap<>(lastView.changes);
+                for (int id : changedIds) {
+                    Long row = firstRowById.get(id);
+                    changes.put(id, row == null ? null : rows.get(row));
+                }
+                current = new ReadView(lastView.byId, changes, rows.values());
+            } else {
+                current = new ReadView(rows, firstRowById);
+            }
+            changedIds.clear();
+            lastView = current;
+            view = current;
+        }
+        return current;
+    }
+
+    CharacterJournal journal() {
+        return journal;
+    }
+
+    @Override
+    public Optional<RickMortyCharacter> findById(int id) {
+        Long row = firstRowById.get(id);
+        return row == null ? Optional.empty() : Optional.of(rows.get(row));
+    }
+
+    boolean contains(int id) {
+        return firstRowById.containsKey(id);
+    }
+
+    /**
+     * Все персонажи в порядке строк файла
+     */
+    @Override
+    public List<RickMortyCharacter> findAll() {
+        return new ArrayList<>(rows.values());
+    }
+
+    List<RickMortyCharacter> findBySpecies(String species) {
+        return resolve(indexes().findBySpecies(species));
+    }
+
+    List<RickMortyCharacter> findByStatus(String status) {
+        return resolve(indexes().findByStatus(status));
+    }
+
+    List<RickMortyCharacter> findByGender(String gender) {
+        return resolve(indexes().findByGender(gender));
+    }
+
+    List<RickMortyCharacter> findByNamePrefix(String prefix) {
+        return resolve(indexes().findByNamePrefix(prefix));
+    }
+
+    private CharacterIndexes indexes() {
+        if (indexes == null) {
+            indexes = new CharacterIndexes(rows);
+        }
+        return indexes;
+    }
+
+    private List<RickMortyCharacter> resolve(List<Long> rowNumbers) {
+        List<RickMortyCharacter> characters = new ArrayList<>(rowNumbers.size());
+        for (long row : rowNumbers) {
+            characters.add(rows.get(row));
+        }
+        return characters;
+    }
+
+    /**
+     * Счётчик name по ключу key: создаётся при первом запросе, дальше поддерживается на лету
+     */
+    LinkedHashMap<Object, Integer> counts(String name, Function<RickMortyCharacter, ?> key) {
+        IncrementalCounter counter = counters.get(name);
+        if (counter == null) {
+            counter = new IncrementalCounter(key, rows);
+            counters.put(name, counter);
+        }
+        return counter.counts();
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    int nextId() {
+        if (maxIdStale) {
+            // Как это делал полный проход по файлу: максимум по оставшимся id
+            maxId = 0;
+            for (int key : firstRowById.keySet()) {
+                maxId = Math.max(maxId, key);
+            }
+            maxIdStale = false;
+        }
+        return maxId + 1;
+    }
+
+    /**
+     * Добавить персонажа в конец или заменить первую строку с тем же id (позиция в файле сохраняется)
+     */
+    void put(RickMortyCharacter character) {
+        changed(character.getId());
+        Long row = firstRowById.get(character.getId());
+        if (row == null) {
+            row = nextRow++;
+            firstRowById.put(character.getId(), row);
+        }
+        RickMortyCharacter previous = rows.put(row, character);
+        maxId = Math.max(maxId, character.getId());
+        if (indexes != null) {
+            indexes.onPut(row, previous, character);
+        }
+        for (IncrementalCounter counter : counters.values()) {
+            counter.onPut(row, previous, character);
+        }
+    }
+
+    /**
+     * Удалить первую строку с данным id
+     */
+    Optional<RickMortyCharacter> remove(int id) {
+        Long row = firstRowById.remove(id);
+        if (row == null) {
+            return Optional.empty();
+        }
+        RickMortyCharacter removed = rows.remove(row);
+        TreeSet<Long> more = duplicateRows.get(id);
+        if (more != null) {
+            firstRowById.put(id, more.pollFirst());
+            if (more.isEmpty()) {
+                duplicateRows.remove(id);
+            }
+        }
+
+        changed(id);
+        if (indexes != null) {
+            indexes.onRemove(row, removed);
+        }
+        for (IncrementalCounter counter : counters.values()) {
+            counter.onRemove(row, removed);
+        }
+        if (id == maxId && !firstRowById.containsKey(id)) {
+            maxIdStale = true;
+        }
+        return Optional.of(removed);
+    }
+
+    private void changed(int id) {
+        view = null;
+        if (lastView != null) {
+            changedIds.add(id);
+        }
+    }
+
+    /**
+     * Строка из файла: добавляется в конец, даже если такой id уже встречался
+     */
+    private void appendRow(RickMortyCharacter character) {
+        long row = nextRow++;
+        rows.put(row, character);
+        Long first = firstRowById.putIfAbsent(character.getId(), row);
+        if (first != null) {
+            duplicateRows.computeIfAbsent(character.getId(), id -> new TreeSet<>()).add(row);
+        }
+        maxId = Math.max(maxId, character.getId());
+    }
+
+    /**
+     * Файл только что записан нами — запоминаем его отметку, чтобы не перечитывать.
+     * В общем режиме вызывается под замком и сообщает о записи другим процессам новым поколением
+     */
+    void markSynced() throws IOException {
+        if (fileLock != null) {
+            fileLock.bumpGeneration();
+        }
+        remember(readAttributes(), journalSize(), readGeneration());
+    }
+
+    // Отметку файла может обновить и поток фонового сжатия журнала
+    private synchronized boolean isSynced(BasicFileAttributes attributes, long journalBytes, long fileGeneration) {
+        return attributes.lastModifiedTime().equals(modifiedTime) && attributes.size() == size
+                && journalBytes == journalSize && fileGeneration == generation;
+    }
+
+    /**
+     * Данные в памяти больше не соответствуют файлу (например, запись не удалась)
+     */
+    void invalidate() {
+        loaded = false;
+        view = null;
+        lastView = null;
+        changedIds.clear();
+        remember(null, -1, -1);
+    }
+
+    private synchronized void remember(BasicFileAttributes attributes, long journalBytes, long fileGeneration) {
+        modifiedTime = attributes == null ? null : attributes.lastModifiedTime();
+        size = attributes == null ? -1 : attributes.size();
+        journalSize = journalBytes;
+        generation = fileGeneration;
+        if (attributes != null) {
+            filesCheckedAt = System.nanoTime();
+        }
+    }
+
+    // Поколение из файла замка: ловит чужие записи, которые не изменили ни размер, ни время
+    private long readGeneration() throws IOException {
+        return fileLock == null ? 0 : fileLock.readGeneration();
+    }
+
+    // Журнал дописывают и другие процессы — его размер тоже входит в отметку
+    private long journalSize() throws IOException {
+        return journal == null ? 0 : journal.size();
+    }
+
+    private BasicFileAttributes readAttributes() throws IOException {
+        return Files.readAttributes(Path.of(filePath), BasicFileAttributes.class);
+    }
+
+    /**
+     * Неизменяемый снимок персонажей: после публикации не меняется,
+     * поэтому его читают сколько угодно потоков без блокировок
+     */
+    static final class ReadView implements CharacterView {
+        // Общая для нескольких снимков карта id -> персонаж и изменения поверх неё (null — id удалён)
+        private final Map<Integer, RickMortyCharacter> byId;
+        private final Map<Integer, RickMortyCharacter> changes;
+        private final List<RickMortyCharacter> all;
+
+        private ReadView(LinkedHashMap<Long, RickMortyCharacter> rows, Map<Integer, Long> firstRowById) {
+            Map<Integer, RickMortyCharacter> byId = new HashMap<>(firstRowById.size() * 4 / 3 + 1);
+            for (Map.Entry<Integer, Long> entry : firstRowById.entrySet()) {
+                byId.put(entry.getKey(), rows.get(entry.getValue()));
+            }
+            this.byId = byId;
+            this.changes = Map.of();
+            this.all = Collections.unmodifiableList(Arrays.asList(rows.values().toArray(new RickMortyCharacter[0])));
+        }
+
+        private ReadView(Map<Integer, RickMortyCharacter> byId, Map<Integer, RickMortyCharacter> changes,
+                         Collection<RickMortyCharacter> rows) {
+            this.byId = byId;
+            this.changes = changes;
+            this.all = Collections.unmodifiableList(Arrays.asList(rows.toArray(new RickMortyCharacter[0])));
+        }
+
+        @Override
+        public Optional<RickMortyCharacter> findById(int id) {
+            if (changes.containsKey(id)) {
+                return Optional.ofNullable(changes.get(id));
+            }
+            return Optional.ofNullable(byId.get(id));
+        }
+
+        @Override
+        public List<RickMortyCharacter> findAll() {
+            return all;
+        }
+
+        @Override
+        public int size() {
+            return all.size();
+        }
+    }
+}
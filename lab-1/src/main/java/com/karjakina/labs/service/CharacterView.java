@@ -0,0 +1,21 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Чтение персонажей одного файла: само хранилище или его неизменяемый снимок
+ */
+interface CharacterView {
+
+    Optional<RickMortyCharacter> findById(int id);
+
+    /**
+     * Все персонажи в порядке строк файла
+     */
+    List<RickMortyCharacter> findAll();
+
+    int size();
+}
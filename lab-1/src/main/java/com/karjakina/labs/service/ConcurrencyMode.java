@@ -0,0 +1,14 @@
+package com.karjakina.labs.service;
+
+/**
+ * Режим доступа к CharacterCrudManager из нескольких потоков
+ */
+public enum ConcurrencyMode {
+
+    // Без синхронизации: менеджером пользуется один поток
+    SINGLE_THREADED,
+
+    // Чтения без блокировок по опубликованному снимку, запись по файлу — под замком
+    // (внутри JVM и FileChannel.lock между процессами)
+    CONCURRENT
+}
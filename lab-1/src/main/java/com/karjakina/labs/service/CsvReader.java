@@ -2,119 +2,272 @@ package com.karjakina.labs.service;
 
 import com.karjakina.labs.model.RickMortyCharacter;
 
-import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Сервис для чтения CSV файлов с данными персонажей
  */
 public class CsvReader {
-    private static final DateTimeFormatter DATE_FORMATTER =
-            DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    // true — файл читается через FileChannel.map (см. MappedUtf8Reader)
+    private final boolean memoryMapped;
+    // Непустые значения created, которые не удалось распарсить (разбор может идти в несколько потоков)
+    private final LongAdder invalidDates = new LongAdder();
+    // Параллельные читатели по уровню параллелизма, создаются при первом вызове
+    private final Map<Integer, ParallelCsvReader> parallelReaders = new ConcurrentHashMap<>();
+
+    public CsvReader() {
+        this(false);
+    }
+
+    public CsvReader(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
 
     /**
      * Чтение всех персонажей из CSV файла
      */
     public List<RickMortyCharacter> readCharacters(String filename) throws IOException {
         List<RickMortyCharacter> characters = new ArrayList<>();
+        forEachCharacter(filename, characters::add);
+        return characters;
+    }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            String line;
-            boolean isFirstLine = true;
+    /**
+     * Чтение всех персонажей в несколько потоков (см. ParallelCsvReader).
+     * Результат совпадает с readCharacters, включая порядок
+     */
+    public List<RickMortyCharacter> readCharactersParallel(String filename, int parallelism) throws IOException {
+        return parallelReaders.computeIfAbsent(parallelism, p -> new ParallelCsvReader(this, p))
+                .readCharacters(filename);
+    }
 
-            while ((line = br.readLine()) != null) {
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue; // Пропускаем заголовок
-                }
+    /**
+     * Сколько дат создания не удалось распарсить за всё время работы этого CsvReader
+     */
+    public long getInvalidDateCount() {
+        return invalidDates.sum();
+    }
+
+    /**
+     * Построчный обход персонажей: каждая строка разбирается и сразу передаётся в action,
+     * список целиком в памяти не хранится
+     */
+    public void forEachCharacter(String filename, Consumer<RickMortyCharacter> action) throws IOException {
+        try (Reader reader = openReader(filename)) {
+            CsvTokenizer tokenizer = new CsvTokenizer(reader);
+            StringDictionary dictionary = new StringDictionary();
+            tokenizer.next(); // Пропускаем заголовок
 
-                RickMortyCharacter character = parseCsvLine(line);
+            while (tokenizer.next()) {
+                RickMortyCharacter character = toCharacter(tokenizer, dictionary);
                 if (character != null) {
-                    characters.add(character);
+                    action.accept(character);
                 }
             }
         }
+    }
+
+    /**
+     * Чтение файла сразу в колонки (см. CharacterColumns): повторяющиеся поля кодируются
+     * прямо из буфера разборщика, объекты RickMortyCharacter не создаются
+     */
+    public CharacterColumns readColumns(String filename) throws IOException {
+        CharacterColumns.Builder builder = new CharacterColumns.Builder();
+        try (Reader reader = openReader(filename)) {
+            CsvTokenizer tokenizer = new CsvTokenizer(reader);
+            tokenizer.next(); // Пропускаем заголовок
+
+            while (tokenizer.next()) {
+                int fields = tokenizer.fieldCount();
+                LocalDateTime created = parseCreated(tokenizer);
+                builder.add(
+                        fields > 0 && !tokenizer.isEmpty(0) ? tokenizer.getInt(0) : 0,
+                        fields > 1 ? tokenizer.getString(1) : null,
+                        code(tokenizer, 2, builder.statusDictionary()),
+                        code(tokenizer, 3, builder.speciesDictionary()),
+                        code(tokenizer, 4, builder.typeDictionary()),
+                        code(tokenizer, 5, builder.genderDictionary()),
+                        code(tokenizer, 6, builder.originDictionary()),
+                        code(tokenizer, 7, builder.locationDictionary()),
+                        created);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Колонки с холодным стартом через двоичный снимок (см. CharacterSnapshot).
+     * Если снимок актуален, он просто отображается в память; иначе читается CSV
+     * и снимок записывается заново для следующего запуска
+     */
+    public CharacterColumns loadColumns(String filename) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(Path.of(filename), BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        Path snapshot = CharacterSnapshot.pathFor(filename);
+
+        CharacterColumns columns = CharacterSnapshot.read(snapshot, size, modified);
+        if (columns != null) {
+            return columns;
+        }
+
+        columns = readColumns(filename);
+        try {
+            CharacterSnapshot.write(snapshot, columns, size, modified);
+        } catch (IOException e) {
+            // Без снимка всё работает, просто следующий запуск снова разберёт CSV
+            System.err.println("Не удалось записать снимок " + snapshot + ": " + e.getMessage());
+        }
+        return columns;
+    }
 
+    /**
+     * То же, что readCharacters, но через двоичный снимок (см. loadColumns)
+     */
+    public List<RickMortyCharacter> loadCharacters(String filename) throws IOException {
+        CharacterColumns columns = loadColumns(filename);
+        List<RickMortyCharacter> characters = new ArrayList<>(columns.size());
+        for (int row = 0; row < columns.size(); row++) {
+            characters.add(columns.get(row));
+        }
         return characters;
     }
 
+    private static int code(CsvTokenizer tokenizer, int field, StringDictionary dictionary) {
+        return field < tokenizer.fieldCount() ? tokenizer.getCode(field, dictionary) : StringDictionary.NULL_CODE;
+    }
+
     /**
-     * Парсинг строки CSV в объект RickMortyCharacter
+     * Ленивый поток персонажей: строки читаются по мере потребления.
+     * Поток держит файл открытым, поэтому его нужно закрывать (try-with-resources)
      */
-    private RickMortyCharacter parseCsvLine(String line) {
-        String[] fields = splitCsvLine(line);
+    public Stream<RickMortyCharacter> streamCharacters(String filename) throws IOException {
+        Reader reader = openReader(filename);
+        try {
+            CsvTokenizer tokenizer = new CsvTokenizer(reader);
+            StringDictionary dictionary = new StringDictionary();
+            tokenizer.next(); // Пропускаем заголовок
 
-        RickMortyCharacter character = new RickMortyCharacter();
+            Spliterator<RickMortyCharacter> spliterator =
+                    new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                        @Override
+                        public boolean tryAdvance(Consumer<? super RickMortyCharacter> action) {
+                            try {
+                                while (tokenizer.next()) {
+                                    RickMortyCharacter character = toCharacter(tokenizer, dictionary);
+                                    if (character != null) {
+                                        action.accept(character);
+                                        return true;
+                                    }
+                                }
+                                return false;
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                    };
 
-        if (fields.length > 0 && !fields[0].isEmpty()) {
-            character.setId(Integer.parseInt(fields[0]));
+            return StreamSupport.stream(spliterator, false)
+                    .onClose(() -> {
+                        try {
+                            reader.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
         }
-        if (fields.length > 1) {
-            character.setName(fields[1]);
+    }
+
+    /**
+     * Открывает файл в выбранном режиме, оба варианта читают UTF-8
+     */
+    private Reader openReader(String filename) throws IOException {
+        if (memoryMapped) {
+            return new MappedUtf8Reader(filename);
+        }
+        return new FileReader(filename, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Сборка одной записи без словаря (например, при проигрывании журнала)
+     */
+    RickMortyCharacter toCharacter(CsvTokenizer tokenizer) {
+        return toCharacter(tokenizer, null);
+    }
+
+    /**
+     * Сборка RickMortyCharacter из текущей записи разборщика.
+     * Строки создаются только для тех полей, которые реально есть в записи.
+     * Повторяющиеся поля (всё, кроме имени) берутся из словаря: одинаковые значения
+     * во всех персонажах ссылаются на одну строку
+     */
+    RickMortyCharacter toCharacter(CsvTokenizer tokenizer, StringDictionary dictionary) {
+        int fields = tokenizer.fieldCount();
+
+        RickMortyCharacter character = new RickMortyCharacter();
+
+        if (fields > 0 && !tokenizer.isEmpty(0)) {
+            character.setId(tokenizer.getInt(0));
         }
-        if (fields.length > 2) {
-            character.setStatus(fields[2]);
+        if (fields > 1) {
+            character.setName(tokenizer.getString(1));
         }
-        if (fields.length > 3) {
-            character.setSpecies(fields[3]);
+        if (fields > 2) {
+            character.setStatus(tokenizer.getString(2, dictionary));
         }
-        if (fields.length > 4) {
-            character.setType(fields[4]);
+        if (fields > 3) {
+            character.setSpecies(tokenizer.getString(3, dictionary));
         }
-        if (fields.length > 5) {
-            character.setGender(fields[5]);
+        if (fields > 4) {
+            character.setType(tokenizer.getString(4, dictionary));
         }
-        if (fields.length > 6) {
-            character.setOriginName(fields[6]);
+        if (fields > 5) {
+            character.setGender(tokenizer.getString(5, dictionary));
         }
-        if (fields.length > 7) {
-            character.setLocationName(fields[7]);
+        if (fields > 6) {
+            character.setOriginName(tokenizer.getString(6, dictionary));
         }
-        if (fields.length > 8 && !fields[8].isEmpty()) {
-            try {
-                character.setCreated(LocalDateTime.parse(fields[8], DATE_FORMATTER));
-            } catch (Exception e) {
-                // Если не удалось распарсить дату, оставляем null
-            }
+        if (fields > 7) {
+            character.setLocationName(tokenizer.getString(7, dictionary));
         }
+        character.setCreated(parseCreated(tokenizer));
 
         return character;
     }
 
     /**
-     * Разделение строки CSV с учётом кавычек
+     * Дата создания из поля 8. Если не удалось распарсить дату, оставляем null
+     * и увеличиваем счётчик ошибок (см. getInvalidDateCount)
      */
-
-    private String[] splitCsvLine(String line) {
-        List<String> fields = new ArrayList<>();
-        StringBuilder currentField = new StringBuilder();
-        boolean inQuotes = false;
-
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-
-            if (c == '"') {
-                // Проверяем, не экранированная ли это кавычка
-                if (i < line.length() - 1 && line.charAt(i + 1) == '"') {
-                    currentField.append('"');
-                    i++; // Пропускаем следующую кавычку
-                } else {
-                    inQuotes = !inQuotes;
-                }
-            } else if (c == ',' && !inQuotes) {
-                fields.add(currentField.toString());
-                currentField.setLength(0);
-            } else {
-                currentField.append(c);
-            }
+    private LocalDateTime parseCreated(CsvTokenizer tokenizer) {
+        if (tokenizer.fieldCount() <= 8 || tokenizer.isEmpty(8)) {
+            return null;
         }
-
-        fields.add(currentField.toString());
-        return fields.toArray(new String[0]);
+        LocalDateTime created = tokenizer.getDateTime(8);
+        if (created == null) {
+            invalidDates.increment();
+        }
+        return created;
     }
-}
\ No newline at end of file
+}
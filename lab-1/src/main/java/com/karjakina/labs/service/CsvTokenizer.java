@@ -0,0 +1,270 @@
+package com.karjakina.labs.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Переиспользуемый разборщик CSV, работающий прямо по буферу char[].
+ * Для каждой записи запоминает только границы полей в int[],
+ * строки создаются лишь когда значение действительно запрошено.
+ *
+ * Правила кавычек те же, что были в CsvReader.splitCsvLine:
+ * одиночная кавычка переключает режим "внутри кавычек", пара "" даёт символ " —
+ * и внутри кавычек, и вне их (поэтому "" — это значение ", а не пустая строка).
+ * Перевод строки внутри кавычек считается частью поля (splitCsvLine видел
+ * файл построчно и такие записи разрывал).
+ */
+public class CsvTokenizer {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int INITIAL_FIELDS = 16;
+
+    // Результаты поиска конца записи
+    private static final int FOUND = 1;
+    private static final int NEED_MORE = 0;
+    private static final int END = -1;
+
+    private final Reader reader;
+    private char[] buffer;
+    private int limit;          // конец прочитанных данных в буфере
+    private int position;       // начало следующей записи
+    private boolean eof;
+
+    // bounds[2 * i] — начало поля i, bounds[2 * i + 1] — его конец (не включительно)
+    private int[] bounds = new int[INITIAL_FIELDS * 2];
+    // true, если в поле были кавычки и значение нужно раскодировать
+    private boolean[] quoted = new boolean[INITIAL_FIELDS];
+    private int fieldCount;
+
+    public CsvTokenizer(Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvTokenizer(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buffer = new char[Math.max(bufferSize, 16)];
+    }
+
+    /**
+     * Разбор уже загруженного в память текста (reader не нужен)
+     */
+    public CsvTokenizer(char[] data, int length) {
+        this.reader = null;
+        this.buffer = data;
+        this.limit = length;
+        this.eof = true;
+    }
+
+    /**
+     * Переходит к следующей записи. Возвращает false, если данные закончились.
+     * Границы полей предыдущей записи после вызова становятся недействительными
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            int result = scanRecord();
+            if (result != NEED_MORE) {
+                return result == FOUND;
+            }
+            fill();
+        }
+    }
+
+    /**
+     * Ищет конец записи, начиная с position, и заполняет границы полей.
+     * NEED_MORE означает, что запись не поместилась в прочитанную часть буфера
+     */
+    private int scanRecord() {
+        fieldCount = 0;
+        if (eof && position >= limit) {
+            return END;
+        }
+
+        boolean inQuotes = false;
+        int fieldStart = position;
+        boolean fieldQuoted = false;
+        char[] buf = buffer;
+
+        for (int i = position; i < limit; i++) {
+            char c = buf[i];
+
+            if (c == '"') {
+                fieldQuoted = true;
+                if (i + 1 < limit && buf[i + 1] == '"') {
+                    i++; // Экранированная кавычка, режим не меняется
+                } else if (i + 1 >= limit && !eof) {
+                    return NEED_MORE; // Не видно следующего символа — дочитываем
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else if (!inQuotes && c == ',') {
+                addField(fieldStart, i, fieldQuoted);
+                fieldStart = i + 1;
+                fieldQuoted = false;
+            } else if (!inQuotes && (c == '\n' || c == '\r')) {
+                int next = i + 1;
+                if (c == '\r') {
+                    if (next >= limit && !eof) {
+                        return NEED_MORE; // Возможно, дальше идёт \n
+                    }
+                    if (next < limit && buf[next] == '\n') {
+                        next++;
+                    }
+                }
+                addField(fieldStart, i, fieldQuoted);
+                position = next;
+                return FOUND;
+            }
+        }
+
+        if (!eof) {
+            return NEED_MORE;
+        }
+        // Последняя запись без перевода строки в конце файла
+        addField(fieldStart, limit, fieldQuoted);
+        position = limit;
+        return FOUND;
+    }
+
+    private void addField(int start, int end, boolean isQuoted) {
+        if (fieldCount == quoted.length) {
+            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            quoted = Arrays.copyOf(quoted, quoted.length * 2);
+        }
+        bounds[2 * fieldCount] = start;
+        bounds[2 * fieldCount + 1] = end;
+        quoted[fieldCount] = isQuoted;
+        fieldCount++;
+    }
+
+    /**
+     * Сдвигает незаконченную запись в начало буфера и дочитывает данные
+     */
+    private void fill() throws IOException {
+        int remaining = limit - position;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        } else if (remaining == buffer.length) {
+            // Запись длиннее буфера — расширяем
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        position = 0;
+        limit = remaining;
+
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Поле пустое после раскодирования кавычек
+     */
+    public boolean isEmpty(int field) {
+        if (quoted[field]) {
+            return getString(field).isEmpty();
+        }
+        return bounds[2 * field] == bounds[2 * field + 1];
+    }
+
+    /**
+     * Значение поля в виде строки — единственное место, где создаётся String
+     */
+    public String getString(int field) {
+        int start = bounds[2 * field];
+        int end = bounds[2 * field + 1];
+        if (!quoted[field]) {
+            return new String(buffer, start, end - start);
+        }
+        return unquote(start, end);
+    }
+
+    /**
+     * Значение поля через словарь: повторяющиеся значения не создают новых строк.
+     * Без словаря (null) работает как getString(field)
+     */
+    public String getString(int field, StringDictionary dictionary) {
+        if (dictionary == null) {
+            return getString(field);
+        }
+        if (quoted[field]) {
+            return dictionary.intern(getString(field));
+        }
+        return dictionary.intern(buffer, bounds[2 * field], bounds[2 * field + 1]);
+    }
+
+    /**
+     * Код значения поля в словаре
+     */
+    public int getCode(int field, StringDictionary dictionary) {
+        if (quoted[field]) {
+            return dictionary.code(getString(field));
+        }
+        return dictionary.code(buffer, bounds[2 * field], bounds[2 * field + 1]);
+    }
+
+    /**
+     * Целочисленное значение поля без создания промежуточной строки
+     */
+    public int getInt(int field) {
+        int start = bounds[2 * field];
+        int end = bounds[2 * field + 1];
+        if (quoted[field] || start == end) {
+            return Integer.parseInt(getString(field));
+        }
+
+        boolean negative = buffer[start] == '-';
+        int i = negative || buffer[start] == '+' ? start + 1 : start;
+        if (i == end || end - i > 9) {
+            // Пустое число или возможное переполнение — пусть разберётся Integer.parseInt
+            return Integer.parseInt(getString(field));
+        }
+
+        int result = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + getString(field) + "\"");
+            }
+            result = result * 10 + digit;
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Дата и время из поля без промежуточной строки (см. IsoDateTimeParser).
+     * null, если значение не является датой
+     */
+    public LocalDateTime getDateTime(int field) {
+        if (quoted[field]) {
+            return IsoDateTimeParser.parse(getString(field));
+        }
+        return IsoDateTimeParser.parse(buffer, bounds[2 * field], bounds[2 * field + 1]);
+    }
+
+    /**
+     * Раскодирование поля с кавычками по тем же правилам, что и при разборе
+     */
+    private String unquote(int start, int end) {
+        StringBuilder value = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = buffer[i];
+            if (c == '"') {
+                if (i + 1 < end && buffer[i + 1] == '"') {
+                    value.append('"');
+                    i++;
+                }
+                // Одиночная кавычка — граница, в значение не попадает
+            } else {
+                value.append(c);
+            }
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,292 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Запись CSV с персонажами прямо в байтовый буфер в UTF-8.
+ *
+ * Каждое поле кодируется за один проход: символы пишутся в буфер как есть, и только если
+ * встретилась запятая, кавычка или перевод строки, поле переписывается заново в кавычках.
+ * Промежуточные строки (String.join, replace) не создаются, буфер переиспользуется.
+ * Результат совпадает с RickMortyCharacter.toCsvLine.
+ */
+public class CsvWriter implements Closeable, Flushable {
+    public static final String CHARACTER_HEADER = "id,name,status,species,type,gender,origin/name,location/name,created";
+
+    private static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream out;
+    private byte[] buffer;
+    private int position;
+    private boolean firstField = true;
+
+    public CsvWriter(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvWriter(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[Math.max(bufferSize, 64)];
+    }
+
+    /**
+     * Запись в файл (перезаписывает его)
+     */
+    public CsvWriter(String filePath) throws IOException {
+        this(new FileOutputStream(filePath));
+    }
+
+    public void writeHeader() throws IOException {
+        ensureCapacity(CHARACTER_HEADER.length() + LINE_SEPARATOR.length);
+        for (int i = 0; i < CHARACTER_HEADER.length(); i++) {
+            buffer[position++] = (byte) CHARACTER_HEADER.charAt(i);
+        }
+        endRecord();
+    }
+
+    /**
+     * Строка персонажа в том же виде, что и toCsvLine
+     */
+    public void writeCharacter(RickMortyCharacter character) throws IOException {
+        writeField(character.getId());
+        writeField(character.getName());
+        writeField(character.getStatus());
+        writeField(character.getSpecies());
+        writeField(character.getType());
+        writeField(character.getGender());
+        writeField(character.getOriginName());
+        writeField(character.getLocationName());
+        writeField(character.getCreated());
+        endRecord();
+    }
+
+    /**
+     * Строковое поле, null записывается как пустое
+     */
+    public void writeField(String value) throws IOException {
+        int length = value == null ? 0 : value.length();
+        // Худший случай: разделитель, 3 байта на символ UTF-8 (кавычка удваивается,
+        // но она однобайтовая) и две кавычки. Поле не разрывается сбросом буфера
+        ensureCapacity(1 + 3 * length + 2);
+        separator();
+        if (length == 0) {
+            return;
+        }
+
+        int start = position;
+        if (!encode(value, false)) {
+            position = start;
+            if (onlyQuotes(value)) {
+                // Только удвоенные кавычки, без обрамления: иначе CsvTokenizer
+                // прочитает обрамляющие кавычки как ещё одну пару ""
+                encode(value, true);
+                return;
+            }
+            buffer[position++] = '"';
+            encode(value, true);
+            buffer[position++] = '"';
+        }
+    }
+
+    private static boolean onlyQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != '"') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void writeField(int value) throws IOException {
+        ensureCapacity(12);
+        separator();
+        if (value == Integer.MIN_VALUE) {
+            writeAscii(String.valueOf(value));
+            return;
+        }
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int end = position + stringSize(value);
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+    }
+
+    /**
+     * Дата в формате LocalDateTime.toString, null записывается как пустое поле
+     */
+    public void writeField(LocalDateTime value) throws IOException {
+        // Самое длинное значение: +999999999-12-31T23:59:59.999999999
+        ensureCapacity(1 + 40);
+        separator();
+        if (value == null) {
+            return;
+        }
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            // Редкий случай со знаком года — пусть отформатирует сам LocalDateTime
+            writeAscii(value.toString());
+            return;
+        }
+
+        writeDigits(year, 4);
+        buffer[position++] = '-';
+        writeDigits(value.getMonthValue(), 2);
+        buffer[position++] = '-';
+        writeDigits(value.getDayOfMonth(), 2);
+        buffer[position++] = 'T';
+        writeDigits(value.getHour(), 2);
+        buffer[position++] = ':';
+        writeDigits(value.getMinute(), 2);
+
+        int second = value.getSecond();
+        int nano = value.getNano();
+        if (second > 0 || nano > 0) {
+            buffer[position++] = ':';
+            writeDigits(second, 2);
+            if (nano > 0) {
+                buffer[position++] = '.';
+                if (nano % 1_000_000 == 0) {
+                    writeDigits(nano / 1_000_000, 3);
+                } else if (nano % 1_000 == 0) {
+                    writeDigits(nano / 1_000, 6);
+                } else {
+                    writeDigits(nano, 9);
+                }
+            }
+        }
+    }
+
+    public void endRecord() throws IOException {
+        ensureCapacity(LINE_SEPARATOR.length);
+        for (byte b : LINE_SEPARATOR) {
+            buffer[position++] = b;
+        }
+        firstField = true;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Кодирует value в UTF-8 начиная с position. Без кавычек возвращает false,
+     * как только встретился символ, требующий кавычек; в кавычках удваивает "
+     */
+    private boolean encode(String value, boolean quoted) {
+        byte[] buf = buffer;
+        int p = position;
+        int length = value.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                    if (!quoted) {
+                        return false;
+                    }
+                    if (c == '"') {
+                        buf[p++] = '"';
+                    }
+                }
+                buf[p++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[p++] = (byte) (0xC0 | (c >> 6));
+                buf[p++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buf[p++] = (byte) (0xF0 | (codePoint >> 18));
+                buf[p++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buf[p++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buf[p++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buf[p++] = '?'; // Непарный суррогат, как делает String.getBytes
+            } else {
+                buf[p++] = (byte) (0xE0 | (c >> 12));
+                buf[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[p++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        position = p;
+        return true;
+    }
+
+    /**
+     * Запятая перед всеми полями, кроме первого. Место под неё резервирует вызывающий
+     */
+    private void separator() {
+        if (firstField) {
+            firstField = false;
+        } else {
+            buffer[position++] = ',';
+        }
+    }
+
+    private void writeDigits(int value, int count) {
+        for (int i = position + count - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += count;
+    }
+
+    private void writeAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            buffer[position++] = (byte) value.charAt(i);
+        }
+    }
+
+    private static int stringSize(int value) {
+        int size = 1;
+        while (value >= 10) {
+            value /= 10;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Гарантирует место под needed байт: сбрасывает буфер, а для очень длинного поля расширяет его
+     */
+    private void ensureCapacity(int needed) throws IOException {
+        if (buffer.length - position >= needed) {
+            return;
+        }
+        flushBuffer();
+        if (buffer.length < needed) {
+            buffer = new byte[Math.max(needed, buffer.length * 2)];
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
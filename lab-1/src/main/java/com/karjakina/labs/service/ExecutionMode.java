@@ -0,0 +1,11 @@
+package com.karjakina.labs.service;
+
+/**
+ * На каких потоках IngestionPipeline читает шарды
+ */
+public enum ExecutionMode {
+    // Фиксированный пул обычных потоков заданного размера
+    PLATFORM,
+    // Виртуальный поток на каждый шард (Java 21+); на Java 17 — тот же фиксированный пул
+    VIRTUAL
+}
@@ -0,0 +1,29 @@
+package com.karjakina.labs.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Общие ForkJoinPool для параллельного чтения и подсчёта.
+ *
+ * Если parallelism совпадает с общим пулом, отдаётся ForkJoinPool.commonPool(),
+ * иначе — один пул на каждый уровень параллелизма на всё время работы JVM.
+ * Рабочие потоки ForkJoinPool — демоны и завершаются сами после простоя, поэтому пулы не закрываются.
+ */
+final class ForkJoinPools {
+    private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    private ForkJoinPools() {
+    }
+
+    static ForkJoinPool forParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Уровень параллелизма должен быть положительным: " + parallelism);
+        }
+        if (parallelism == ForkJoinPool.getCommonPoolParallelism()) {
+            return ForkJoinPool.commonPool();
+        }
+        return POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+    }
+}
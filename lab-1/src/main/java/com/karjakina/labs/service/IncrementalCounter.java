@@ -0,0 +1,134 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Счётчик персонажей по ключу (например, по виду), который обновляется при каждом изменении
+ * хранилища вместо полного пересчёта. Ключи идут в порядке первого появления в файле,
+ * null и пустые строки не считаются — как в SpeciesProcessor.countSpeciesInOrder.
+ *
+ * Для каждого ключа хранятся только число строк и номер первой строки (см. CharacterStore),
+ * порядок ключей — по номеру первой строки. Добавление и замена стоят O(1) плюс O(log k)
+ * по числу ключей. Строки ключа заново ищутся только при удалении его первой строки:
+ * проходом по строкам хранилища до следующей строки с тем же ключом.
+ */
+class IncrementalCounter {
+
+    private final Function<RickMortyCharacter, ?> key;
+    // Строки хранилища (номер строки -> персонаж); к моменту вызова onPut/onRemove уже изменены
+    private final Map<Long, RickMortyCharacter> rows;
+    private final Map<Object, KeyCount> countsByKey = new HashMap<>();
+    // номер первой строки ключа -> ключ, в порядке файла
+    private final TreeMap<Long, Object> keyByFirstRow = new TreeMap<>();
+
+    /**
+     * Счётчик по строкам хранилища: номер строки -> персонаж, по возрастанию номера
+     */
+    IncrementalCounter(Function<RickMortyCharacter, ?> key, Map<Long, RickMortyCharacter> rows) {
+        this.key = key;
+        this.rows = rows;
+        for (Map.Entry<Long, RickMortyCharacter> row : rows.entrySet()) {
+            add(row.getKey(), row.getValue());
+        }
+    }
+
+    /**
+     * Строка row добавлена (previous == null) или заменена на месте
+     */
+    void onPut(long row, RickMortyCharacter previous, RickMortyCharacter current) {
+        if (previous != null) {
+            if (Objects.equals(keyOf(previous), keyOf(current))) {
+                return;
+            }
+            onRemove(row, previous);
+        }
+        add(row, current);
+    }
+
+    void onRemove(long row, RickMortyCharacter character) {
+        Object value = keyOf(character);
+        if (value == null) {
+            return;
+        }
+        KeyCount count = countsByKey.get(value);
+        if (count == null) {
+            return;
+        }
+        if (--count.rows == 0) {
+            countsByKey.remove(value);
+            keyByFirstRow.remove(count.firstRow);
+        } else if (row == count.firstRow) {
+            // Удалена первая строка ключа — ключ переезжает на следующую свою строку
+            keyByFirstRow.remove(row);
+            count.firstRow = nextRowOf(value, row);
+            keyByFirstRow.put(count.firstRow, value);
+        }
+    }
+
+    /**
+     * Текущие счётчики в порядке первого появления ключа
+     */
+    LinkedHashMap<Object, Integer> counts() {
+        LinkedHashMap<Object, Integer> counts = new LinkedHashMap<>();
+        for (Object value : keyByFirstRow.values()) {
+            counts.put(value, countsByKey.get(value).rows);
+        }
+        return counts;
+    }
+
+    private void add(long row, RickMortyCharacter character) {
+        Object value = keyOf(character);
+        if (value == null) {
+            return;
+        }
+        KeyCount count = countsByKey.get(value);
+        if (count == null) {
+            countsByKey.put(value, new KeyCount(row));
+            keyByFirstRow.put(row, value);
+            return;
+        }
+        count.rows++;
+        if (row < count.firstRow) {
+            // Замена на месте может дать ключу строку раньше прежней первой
+            keyByFirstRow.remove(count.firstRow);
+            count.firstRow = row;
+            keyByFirstRow.put(row, value);
+        }
+    }
+
+    /**
+     * Первая строка после after с ключом value; строки хранилища идут по возрастанию номера
+     */
+    private long nextRowOf(Object value, long after) {
+        for (Map.Entry<Long, RickMortyCharacter> row : rows.entrySet()) {
+            if (row.getKey() > after && value.equals(keyOf(row.getValue()))) {
+                return row.getKey();
+            }
+        }
+        throw new IllegalStateException("Счётчик расходится с хранилищем: нет строк с ключом " + value);
+    }
+
+    private Object keyOf(RickMortyCharacter character) {
+        Object value = key.apply(character);
+        if (value instanceof String && ((String) value).isEmpty()) {
+            return null;
+        }
+        return value;
+    }
+
+    private static final class KeyCount {
+        int rows = 1;
+        long firstRow;
+
+        KeyCount(long firstRow) {
+            this.firstRow = firstRow;
+        }
+    }
+}
@@ -0,0 +1,436 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Подсчёт видов по набору CSV файлов (шардов) конвейером из трёх стадий:
+ *
+ *   чтение  — потоки читают шарды и режут текст на куски по границам записей;
+ *   разбор  — потоки разбирают куски в персонажей (CsvTokenizer);
+ *   подсчёт — текущий поток сливает персонажей в PartialSpeciesCount.
+ *
+ * Стадии связаны ограниченными очередями: если разбор не успевает, чтение ждёт
+ * (backpressure), и в памяти лежит не больше queueCapacity кусков на очередь.
+ * Порядок первого появления тот же, что при последовательном чтении шардов
+ * в переданном порядке (каталог читается по возрастанию имён файлов).
+ * Один экземпляр выполняет один подсчёт за раз.
+ *
+ * В режиме ExecutionMode.VIRTUAL каждый шард читается в своём виртуальном потоке (Java 21+),
+ * так что сотни мелких шардов не требуют подбирать размер пула; на Java 17 вместо этого
+ * используется пул из readers потоков. Открытых шардов при этом не больше
+ * max(readers, queueCapacity): остальные потоки ждут разрешения, не открыв файл и не
+ * заведя буфер, иначе тысячи шардов держали бы тысячи буферов по chunkSize.
+ * Разбор всегда идёт на parsers обычных потоках — это работа для процессора,
+ * а не ожидание ввода-вывода.
+ */
+public class IngestionPipeline {
+    private static final int DEFAULT_QUEUE_CAPACITY = 16;
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 20;     // 1M символов
+    private static final long POLL_MILLIS = 100;
+
+    // Глобальная позиция записи: шард, номер куска в шарде, номер записи в куске
+    private static final int ROW_BITS = 24;
+    private static final int CHUNK_BITS = 24;
+
+    private final int readers;
+    // Сколько шардов может читаться одновременно (в режиме VIRTUAL потоков бывает больше)
+    private final int maxOpenShards;
+    private final int parsers;
+    private final int queueCapacity;
+    private final int chunkSize;
+    private final ExecutionMode mode;
+    private final CsvReader csvReader = new CsvReader();
+
+    private final Stage readStage = new Stage("чтение", "симв.");
+    private final Stage parseStage = new Stage("разбор", "записей");
+    private final Stage countStage = new Stage("подсчёт", "записей");
+
+    public IngestionPipeline() {
+        this(2, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY, DEFAULT_CHUNK_SIZE,
+                ExecutionMode.VIRTUAL);
+    }
+
+    public IngestionPipeline(int readers, int parsers, int queueCapacity, int chunkSize) {
+        this(readers, parsers, queueCapacity, chunkSize, ExecutionMode.PLATFORM);
+    }
+
+    /**
+     * readers — сколько шардов читается одновременно (в режиме VIRTUAL — не меньше queueCapacity),
+     * parsers — потоков разбора, queueCapacity — размер каждой очереди,
+     * chunkSize — размер куска в символах
+     */
+    public IngestionPipeline(int readers, int parsers, int queueCapacity, int chunkSize, ExecutionMode mode) {
+        if (readers < 1 || parsers < 1 || queueCapacity < 1 || chunkSize < 16) {
+            throw new IllegalArgumentException("Некорректные параметры конвейера: readers=" + readers
+                    + ", parsers=" + parsers + ", queueCapacity=" + queueCapacity + ", chunkSize=" + chunkSize);
+        }
+        this.readers = readers;
+        this.maxOpenShards = mode == ExecutionMode.VIRTUAL ? Math.max(readers, queueCapacity) : readers;
+        this.parsers = parsers;
+        this.queueCapacity = queueCapacity;
+        this.chunkSize = chunkSize;
+        this.mode = mode;
+    }
+
+    /**
+     * Все *.csv файлы каталога в порядке имён
+     */
+    public static List<String> listShards(String directory) throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(directory))) {
+            return files.filter(file -> Files.isRegularFile(file) && file.toString().endsWith(".csv"))
+                    .map(Path::toString)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    public LinkedHashMap<String, Integer> countSpeciesInDirectory(String directory) throws IOException {
+        return countSpecies(listShards(directory));
+    }
+
+    /**
+     * Подсчитать виды по всем шардам и записать результат через ResultWriter
+     */
+    public LinkedHashMap<String, Integer> countSpecies(List<String> files, String outputPath) throws IOException {
+        LinkedHashMap<String, Integer> speciesCount = countSpecies(files);
+        new ResultWriter().writeToText(speciesCount, outputPath);
+        return speciesCount;
+    }
+
+    /**
+     * Подсчитать виды по всем шардам: результат совпадает с SpeciesProcessor.countSpeciesInOrder
+     * по персонажам всех файлов подряд
+     */
+    public LinkedHashMap<String, Integer> countSpecies(List<String> files) throws IOException {
+        if (files.size() >= 1 << (Long.SIZE - 1 - ROW_BITS - CHUNK_BITS)) {
+            throw new IllegalArgumentException("Слишком много шардов: " + files.size());
+        }
+        if (files.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Batch> batches = new ArrayBlockingQueue<>(queueCapacity);
+        readStage.start(chunks);
+        parseStage.start(batches);
+        countStage.start(null);
+
+        Run run = new Run();
+        int readThreads = Math.min(readers, files.size());
+        ExecutorService readPool = mode == ExecutionMode.VIRTUAL
+                ? VirtualThreads.newPerTaskExecutor(readThreads, "pipeline-read")
+                : VirtualThreads.newPlatformPool(readThreads, "pipeline-read");
+        ExecutorService parsePool = VirtualThreads.newPlatformPool(parsers, "pipeline-parse");
+        Semaphore openShards = new Semaphore(maxOpenShards);
+        try {
+            AtomicInteger filesLeft = new AtomicInteger(files.size());
+            for (int shard = 0; shard < files.size(); shard++) {
+                int index = shard;
+                readPool.execute(() -> {
+                    run.guard(() -> {
+                        openShards.acquire();
+                        try {
+                            readShard(files.get(index), index, chunks, run);
+                        } finally {
+                            openShards.release();
+                        }
+                    });
+                    if (filesLeft.decrementAndGet() == 0) {
+                        readStage.finish();
+                        // Все шарды прочитаны — по одному маркеру конца на поток разбора
+                        run.guard(() -> {
+                            for (int i = 0; i < parsers; i++) {
+                                put(chunks, Chunk.END, readStage, run);
+                            }
+                        });
+                    }
+                });
+            }
+            for (int i = 0; i < parsers; i++) {
+                parsePool.execute(() -> run.guard(() -> parseChunks(chunks, batches, run)));
+            }
+
+            PartialSpeciesCount partial = countBatches(batches, run);
+            countStage.finish();
+            return partial.toOrderedMap();
+        } finally {
+            readPool.shutdownNow();
+            parsePool.shutdownNow();
+        }
+    }
+
+    /**
+     * Показатели стадий; можно вызывать и во время работы из другого потока
+     */
+    public List<StageStats> stats() {
+        return List.of(readStage.snapshot(), parseStage.snapshot(), countStage.snapshot());
+    }
+
+    /**
+     * Стадия чтения: текст шарда режется на куски, заканчивающиеся переводом строки вне кавычек
+     */
+    private void readShard(String file, int shard, BlockingQueue<Chunk> chunks, Run run)
+            throws IOException, InterruptedException {
+        try (FileInputStream input = new FileInputStream(file);
+             Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            // Символов в UTF-8 не больше, чем байтов: мелкому шарду не нужен буфер целого куска
+            long size = input.getChannel().size();
+            char[] buffer = new char[(int) Math.max(16, Math.min(chunkSize, size + 1))];
+            int length = 0;
+            int chunk = 0;
+            boolean eof = false;
+
+            while (!eof) {
+                if (length == buffer.length) {
+                    // Одна запись длиннее куска — расширяем
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                // Заполняем буфер целиком, чтобы искать границу один раз на кусок
+                while (length < buffer.length) {
+                    int read = reader.read(buffer, length, buffer.length - length);
+                    if (read < 0) {
+                        eof = true;
+                        break;
+                    }
+                    length += read;
+                }
+
+                int boundary = eof ? length : lastRecordEnd(buffer, length);
+                if (boundary > 0) {
+                    if (chunk >= 1 << CHUNK_BITS) {
+                        throw new IOException("Слишком много кусков в шарде " + file);
+                    }
+                    put(chunks, new Chunk(shard, chunk++, Arrays.copyOf(buffer, boundary)), readStage, run);
+                    readStage.processed.add(boundary);
+                    System.arraycopy(buffer, boundary, buffer, 0, length - boundary);
+                    length -= boundary;
+                }
+            }
+        }
+    }
+
+    /**
+     * Позиция после последнего перевода строки вне кавычек, 0 — если такого нет
+     */
+    private static int lastRecordEnd(char[] buffer, int length) {
+        boolean inQuotes = false;
+        int boundary = 0;
+        for (int i = 0; i < length; i++) {
+            char c = buffer[i];
+            if (c == '"') {
+                inQuotes = !inQuotes;
+            } else if (c == '\n' && !inQuotes) {
+                boundary = i + 1;
+            }
+        }
+        return boundary;
+    }
+
+    /**
+     * Стадия разбора: у каждого потока свой словарь строк
+     */
+    private void parseChunks(BlockingQueue<Chunk> chunks, BlockingQueue<Batch> batches, Run run)
+            throws IOException, InterruptedException {
+        StringDictionary dictionary = new StringDictionary();
+        while (true) {
+            Chunk chunk = take(chunks, run);
+            if (chunk == Chunk.END) {
+                put(batches, Batch.END, parseStage, run);
+                return;
+            }
+
+            CsvTokenizer tokenizer = new CsvTokenizer(chunk.data, chunk.data.length);
+            if (chunk.index == 0) {
+                tokenizer.next(); // Пропускаем заголовок шарда
+            }
+            List<RickMortyCharacter> characters = new ArrayList<>();
+            while (tokenizer.next()) {
+                characters.add(csvReader.toCharacter(tokenizer, dictionary));
+            }
+            if (characters.size() >= 1 << ROW_BITS) {
+                throw new IOException("Слишком много записей в куске шарда " + chunk.shard);
+            }
+            put(batches, new Batch(chunk.shard, chunk.index, characters), parseStage, run);
+            parseStage.processed.add(characters.size());
+        }
+    }
+
+    /**
+     * Стадия подсчёта: работает, пока все потоки разбора не пришлют маркер конца
+     */
+    private PartialSpeciesCount countBatches(BlockingQueue<Batch> batches, Run run) throws IOException {
+        PartialSpeciesCount partial = new PartialSpeciesCount();
+        int finishedParsers = 0;
+        try {
+            while (finishedParsers < parsers) {
+                Batch batch = take(batches, run);
+                if (batch == Batch.END) {
+                    if (++finishedParsers == parsers) {
+                        parseStage.finish();
+                    }
+                    continue;
+                }
+                long base = ((long) batch.shard << (CHUNK_BITS + ROW_BITS)) | ((long) batch.chunk << ROW_BITS);
+                List<RickMortyCharacter> characters = batch.characters;
+                for (int i = 0; i < characters.size(); i++) {
+                    partial.add(characters.get(i).getSpecies(), base | i);
+                }
+                countStage.processed.add(characters.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Подсчёт прерван", e);
+        }
+        run.rethrow();
+        return partial;
+    }
+
+    /**
+     * Ожидание в очереди с проверкой, не упала ли другая стадия
+     */
+    private static <T> T take(BlockingQueue<T> queue, Run run) throws IOException, InterruptedException {
+        while (true) {
+            run.rethrow();
+            T item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (item != null) {
+                return item;
+            }
+        }
+    }
+
+    /**
+     * Запись в выходную очередь стадии stage; ждёт, пока следующая стадия освободит место
+     */
+    private static <T> void put(BlockingQueue<T> queue, T item, Stage stage, Run run)
+            throws IOException, InterruptedException {
+        while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            run.rethrow();
+        }
+        stage.observeDepth(queue.size());
+    }
+
+    private static final class Chunk {
+        static final Chunk END = new Chunk(-1, -1, new char[0]);
+
+        final int shard;
+        final int index;
+        final char[] data;
+
+        Chunk(int shard, int index, char[] data) {
+            this.shard = shard;
+            this.index = index;
+            this.data = data;
+        }
+    }
+
+    private static final class Batch {
+        static final Batch END = new Batch(-1, -1, List.of());
+
+        final int shard;
+        final int chunk;
+        final List<RickMortyCharacter> characters;
+
+        Batch(int shard, int chunk, List<RickMortyCharacter> characters) {
+            this.shard = shard;
+            this.chunk = chunk;
+            this.characters = characters;
+        }
+    }
+
+    /**
+     * Первая ошибка любой стадии; остальные стадии видят её и останавливаются
+     */
+    private static final class Run {
+        private volatile Throwable failure;
+
+        void guard(Work work) {
+            try {
+                work.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+
+        void rethrow() throws IOException {
+            Throwable error = failure;
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            }
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if (error instanceof Error) {
+                throw (Error) error;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Work {
+        void run() throws IOException, InterruptedException;
+    }
+
+    /**
+     * Изменяемые показатели стадии
+     */
+    private static final class Stage {
+        final String name;
+        final String unit;
+        final LongAdder processed = new LongAdder();
+        final AtomicInteger peakDepth = new AtomicInteger();
+        volatile BlockingQueue<?> output;
+        volatile long startNanos;
+        volatile long finishNanos;
+
+        Stage(String name, String unit) {
+            this.name = name;
+            this.unit = unit;
+        }
+
+        void start(BlockingQueue<?> queue) {
+            processed.reset();
+            peakDepth.set(0);
+            output = queue;
+            startNanos = System.nanoTime();
+            finishNanos = 0;
+        }
+
+        void finish() {
+            finishNanos = System.nanoTime();
+        }
+
+        void observeDepth(int depth) {
+            peakDepth.accumulateAndGet(depth, Math::max);
+        }
+
+        StageStats snapshot() {
+            long end = finishNanos != 0 ? finishNanos : System.nanoTime();
+            BlockingQueue<?> queue = output;
+            return new StageStats(name, unit, processed.sum(), startNanos == 0 ? 0 : end - startNanos,
+                    queue == null ? 0 : queue.size(), peakDepth.get());
+        }
+    }
+}
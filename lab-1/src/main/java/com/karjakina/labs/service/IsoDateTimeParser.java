@@ -0,0 +1,142 @@
+package com.karjakina.labs.service;
+
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Разбор даты создания персонажа из участка char[].
+ *
+ * Быстрый путь понимает те раскладки, которые выдаёт LocalDateTime.toString (а значит и toCsvLine):
+ * uuuu-MM-ddTHH:mm, uuuu-MM-ddTHH:mm:ss и с дробной частью секунды из 1–9 цифр.
+ * Остальное отдаётся DateTimeFormatter.ISO_LOCAL_DATE_TIME. Некорректная дата
+ * даёт null, исключения наружу не выходят.
+ */
+final class IsoDateTimeParser {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    // Результат быстрого пути: раскладка знакомая, но значения недопустимы (например, 2017-02-30)
+    private static final LocalDateTime INVALID = LocalDateTime.MIN;
+
+    private IsoDateTimeParser() {
+    }
+
+    /**
+     * Дата из участка [start, end), null — если это не дата
+     */
+    static LocalDateTime parse(char[] chars, int start, int end) {
+        LocalDateTime fast = parseFast(chars, start, end);
+        if (fast == INVALID) {
+            return null;
+        }
+        if (fast != null) {
+            return fast;
+        }
+        return parseWithFormatter(new String(chars, start, end - start));
+    }
+
+    static LocalDateTime parse(String text) {
+        return parse(text.toCharArray(), 0, text.length());
+    }
+
+    /**
+     * null — раскладка незнакомая, INVALID — раскладка знакомая, но дата неверная
+     */
+    private static LocalDateTime parseFast(char[] c, int start, int end) {
+        int length = end - start;
+        if (length < 16 || c[start + 4] != '-' || c[start + 7] != '-' || c[start + 10] != 'T'
+                || c[start + 13] != ':') {
+            return null;
+        }
+        int year = digits(c, start, 4);
+        int month = digits(c, start + 5, 2);
+        int day = digits(c, start + 8, 2);
+        int hour = digits(c, start + 11, 2);
+        int minute = digits(c, start + 14, 2);
+        if ((year | month | day | hour | minute) < 0) {
+            return null;
+        }
+
+        int second = 0;
+        int nano = 0;
+        int position = start + 16;
+        if (position < end) {
+            if (c[position] != ':' || end - position < 3) {
+                return null;
+            }
+            second = digits(c, position + 1, 2);
+            if (second < 0) {
+                return null;
+            }
+            position += 3;
+
+            if (position < end) {
+                int fractionDigits = end - position - 1;
+                if (c[position] != '.' || fractionDigits < 1 || fractionDigits > 9) {
+                    return null;
+                }
+                nano = digits(c, position + 1, fractionDigits);
+                if (nano < 0) {
+                    return null;
+                }
+                for (int i = fractionDigits; i < 9; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+
+        if (month < 1 || month > 12 || day < 1 || day > monthLength(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            return INVALID;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    /**
+     * Число из count цифр, -1 если встретился другой символ
+     */
+    private static int digits(char[] c, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = c[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int monthLength(int year, int month) {
+        switch (month) {
+            case 2:
+                return Year.isLeap(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Медленный путь для редких раскладок (например, год с знаком или больше четырёх цифр)
+     */
+    private static LocalDateTime parseWithFormatter(String text) {
+        ParsePosition position = new ParsePosition(0);
+        DATE_FORMATTER.parseUnresolved(text, position);
+        if (position.getErrorIndex() >= 0 || position.getIndex() != text.length()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(text, DATE_FORMATTER);
+        } catch (DateTimeException e) {
+            // Синтаксис верный, но значения полей недопустимы
+            return null;
+        }
+    }
+}
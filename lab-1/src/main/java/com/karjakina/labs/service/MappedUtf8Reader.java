@@ -0,0 +1,125 @@
+package com.karjakina.labs.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader, который декодирует UTF-8 прямо из отображённой в память области файла (FileChannel.map).
+ * Байты не копируются в промежуточный буфер, повторные чтения идут из кэша страниц ОС.
+ *
+ * Файл отображается окнами фиксированного размера, поэтому работают и файлы больше 2 GB.
+ * Символ, разрезанный границей окна, не теряется: следующее окно начинается
+ * с первого недекодированного байта.
+ */
+public class MappedUtf8Reader extends Reader {
+    private static final long DEFAULT_WINDOW_SIZE = 256L << 20;   // 256 MB
+    private static final int MAX_CHAR_BYTES = 4;
+
+    private final FileChannel channel;
+    private final boolean ownsChannel;
+    private final long end;
+    private final long windowSize;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private boolean finished;
+
+    /**
+     * Чтение всего файла
+     */
+    public MappedUtf8Reader(String filename) throws IOException {
+        FileChannel fileChannel = FileChannel.open(Path.of(filename), StandardOpenOption.READ);
+        this.channel = fileChannel;
+        this.ownsChannel = true;
+        this.end = fileChannel.size();
+        this.windowSize = DEFAULT_WINDOW_SIZE;
+        this.windowStart = 0;
+    }
+
+    /**
+     * Чтение диапазона [from, to) уже открытого канала. Канал остаётся открытым после close()
+     */
+    public MappedUtf8Reader(FileChannel channel, long from, long to) {
+        this(channel, from, to, DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedUtf8Reader(FileChannel channel, long from, long to, long windowSize) {
+        if (windowSize < MAX_CHAR_BYTES) {
+            throw new IllegalArgumentException("Слишком маленькое окно: " + windowSize);
+        }
+        this.channel = channel;
+        this.ownsChannel = false;
+        this.end = to;
+        this.windowSize = windowSize;
+        this.windowStart = from;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (finished) {
+            return -1;
+        }
+
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        while (out.position() == off && !finished) {
+            if (window == null || needsRemap()) {
+                remap();
+            }
+
+            boolean lastWindow = windowStart + window.limit() == end;
+            CoderResult result = decoder.decode(window, out, lastWindow);
+            if (result.isError()) {
+                result.throwException();
+            }
+
+            if (lastWindow && !window.hasRemaining()) {
+                decoder.flush(out);
+                finished = true;
+            } else if (result.isOverflow()) {
+                break;
+            }
+        }
+
+        int read = out.position() - off;
+        return read == 0 && finished ? -1 : read;
+    }
+
+    /**
+     * Окно почти исчерпано: в хвосте может остаться только часть многобайтового символа
+     */
+    private boolean needsRemap() {
+        return window.remaining() < MAX_CHAR_BYTES && windowStart + window.limit() < end;
+    }
+
+    private void remap() throws IOException {
+        long position = window == null ? windowStart : windowStart + window.position();
+        long size = Math.min(windowSize, end - position);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        windowStart = position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Отображение освобождается сборщиком мусора, явного unmap в Java 17 нет
+        window = null;
+        finished = true;
+        if (ownsChannel) {
+            channel.close();
+        }
+    }
+}
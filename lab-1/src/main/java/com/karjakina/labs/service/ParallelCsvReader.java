@@ -0,0 +1,281 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Параллельное чтение CSV файла с персонажами.
+ *
+ * Файл делится на диапазоны байтов, которые начинаются и заканчиваются на границе строки
+ * (перевод строки внутри кавычек границей не считается). Каждый диапазон разбирается
+ * отдельной задачей в ForkJoinPool через MappedUtf8Reader, результаты склеиваются
+ * в исходном порядке строк, поэтому результат совпадает с CsvReader.readCharacters.
+ *
+ * Пул берётся из ForkJoinPools: общий, если parallelism совпадает с ним, иначе один
+ * на уровень параллелизма для всех экземпляров.
+ */
+public class ParallelCsvReader {
+    private static final int DEFAULT_MIN_CHUNK_SIZE = 1 << 20;    // 1 MB
+    private static final int MAX_CHUNK_SIZE = 64 << 20;           // 64 MB
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int SCAN_BLOCK_SIZE = 64 * 1024;
+
+    private final CsvReader csvReader;
+    private final int parallelism;
+    private final int minChunkSize;
+    private final ForkJoinPool pool;
+
+    public ParallelCsvReader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelCsvReader(int parallelism) {
+        this(new CsvReader(), parallelism, DEFAULT_MIN_CHUNK_SIZE);
+    }
+
+    /**
+     * Ошибки разбора дат попадают в счётчик переданного CsvReader
+     */
+    ParallelCsvReader(CsvReader csvReader, int parallelism) {
+        this(csvReader, parallelism, DEFAULT_MIN_CHUNK_SIZE);
+    }
+
+    ParallelCsvReader(int parallelism, int minChunkSize) {
+        this(new CsvReader(), parallelism, minChunkSize);
+    }
+
+    private ParallelCsvReader(CsvReader csvReader, int parallelism, int minChunkSize) {
+        this.pool = ForkJoinPools.forParallelism(parallelism);
+        this.csvReader = csvReader;
+        this.parallelism = parallelism;
+        this.minChunkSize = minChunkSize;
+    }
+
+    /**
+     * Чтение всех персонажей из CSV файла в несколько потоков
+     */
+    public List<RickMortyCharacter> readCharacters(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return new ArrayList<>();
+            }
+
+            try {
+                long[] bounds = splitIntoChunks(channel, size);
+
+                // Каждая задача пишет только в свой индекс, размер списка не меняется
+                List<List<RickMortyCharacter>> results = new ArrayList<>(Collections.nCopies(bounds.length - 1, null));
+                pool.invoke(new ParseTask(channel, bounds, results, 0, results.size()));
+
+                int total = 0;
+                for (List<RickMortyCharacter> part : results) {
+                    total += part.size();
+                }
+                List<RickMortyCharacter> characters = new ArrayList<>(total);
+                for (List<RickMortyCharacter> part : results) {
+                    characters.addAll(part);
+                }
+                return characters;
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Делит файл на диапазоны [bounds[i], bounds[i + 1]), выровненные по границам записей.
+     *
+     * Сначала параллельно считаются кавычки в "сырых" кусках равного размера: по чётности
+     * их суммы известно, находимся ли мы внутри кавычек в точке разреза. Затем от каждой
+     * точки разреза ищется ближайший перевод строки вне кавычек.
+     */
+    private long[] splitIntoChunks(FileChannel channel, long size) throws IOException {
+        long chunkSize = Math.max(minChunkSize, size / ((long) parallelism * CHUNKS_PER_THREAD));
+        chunkSize = Math.min(chunkSize, MAX_CHUNK_SIZE);
+        int chunks = (int) ((size + chunkSize - 1) / chunkSize);
+        if (chunks == 1) {
+            return new long[]{0, size};
+        }
+
+        long[] rawBounds = new long[chunks + 1];
+        for (int i = 0; i < chunks; i++) {
+            rawBounds[i] = i * chunkSize;
+        }
+        rawBounds[chunks] = size;
+
+        long[] quotes = new long[chunks];
+        pool.invoke(new QuoteCountTask(channel, rawBounds, quotes, 0, chunks));
+
+        long[] bounds = new long[chunks + 1];
+        int count = 1;
+        long quotesBefore = 0;
+        for (int i = 1; i < chunks; i++) {
+            quotesBefore += quotes[i - 1];
+            long boundary = findRecordStart(channel, rawBounds[i], size, quotesBefore % 2 == 1);
+            if (boundary > bounds[count - 1] && boundary < size) {
+                bounds[count++] = boundary;
+            }
+        }
+        bounds[count++] = size;
+
+        long[] result = new long[count];
+        System.arraycopy(bounds, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * Позиция сразу после первого перевода строки вне кавычек, начиная с from
+     */
+    private static long findRecordStart(FileChannel channel, long from, long size, boolean inQuotes)
+            throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK_SIZE);
+        long position = from;
+
+        while (position < size) {
+            block.clear();
+            int read = channel.read(block, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = block.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes) {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static long countQuotes(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK_SIZE);
+        long count = 0;
+        long position = from;
+
+        while (position < to) {
+            block.clear();
+            block.limit((int) Math.min(SCAN_BLOCK_SIZE, to - position));
+            int read = channel.read(block, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (block.get(i) == '"') {
+                    count++;
+                }
+            }
+            position += read;
+        }
+        return count;
+    }
+
+    /**
+     * Разбор одного диапазона: UTF-8 декодируется прямо из отображённой области файла
+     */
+    private List<RickMortyCharacter> parseChunk(FileChannel channel, long from, long to) throws IOException {
+        try (MappedUtf8Reader reader = new MappedUtf8Reader(channel, from, to)) {
+            CsvTokenizer tokenizer = new CsvTokenizer(reader);
+            // Свой словарь у каждого диапазона: задачи идут параллельно
+            StringDictionary dictionary = new StringDictionary();
+            if (from == 0) {
+                tokenizer.next(); // Пропускаем заголовок
+            }
+
+            List<RickMortyCharacter> characters = new ArrayList<>();
+            while (tokenizer.next()) {
+                RickMortyCharacter character = csvReader.toCharacter(tokenizer, dictionary);
+                if (character != null) {
+                    characters.add(character);
+                }
+            }
+            return characters;
+        }
+    }
+
+    /**
+     * Подсчёт кавычек в сырых кусках, делит диапазон кусков пополам до одного
+     */
+    private static class QuoteCountTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long[] rawBounds;
+        private final long[] quotes;
+        private final int from;
+        private final int to;
+
+        QuoteCountTask(FileChannel channel, long[] rawBounds, long[] quotes, int from, int to) {
+            this.channel = channel;
+            this.rawBounds = rawBounds;
+            this.quotes = quotes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                try {
+                    quotes[from] = countQuotes(channel, rawBounds[from], rawBounds[from + 1]);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new QuoteCountTask(channel, rawBounds, quotes, from, middle),
+                    new QuoteCountTask(channel, rawBounds, quotes, middle, to));
+        }
+    }
+
+    /**
+     * Разбор диапазонов, результат каждого кладётся в results по его номеру
+     */
+    private class ParseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final List<List<RickMortyCharacter>> results;
+        private final int from;
+        private final int to;
+
+        ParseTask(FileChannel channel, long[] bounds, List<List<RickMortyCharacter>> results, int from, int to) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                try {
+                    results.set(from, parseChunk(channel, bounds[from], bounds[from + 1]));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ParseTask(channel, bounds, results, from, middle),
+                    new ParseTask(channel, bounds, results, middle, to));
+        }
+    }
+}
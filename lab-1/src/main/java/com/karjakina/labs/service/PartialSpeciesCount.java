@@ -0,0 +1,79 @@
+package com.karjakina.labs.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Частичный подсчёт видов по куску данных.
+ * Счётчики хранятся в примитивных long без упаковки в Integer, а для каждого вида
+ * запоминается глобальная позиция первого появления — поэтому частичные результаты
+ * можно сливать в любом порядке и всё равно получить порядок первого появления.
+ */
+class PartialSpeciesCount {
+
+    private final Map<String, Counter> counters = new HashMap<>();
+
+    /**
+     * Учесть персонажа вида species, стоящего на глобальной позиции position
+     */
+    void add(String species, long position) {
+        // Пропускаем персонажей без указанного вида
+        if (species == null || species.isEmpty()) {
+            return;
+        }
+
+        Counter counter = counters.get(species);
+        if (counter == null) {
+            counters.put(species, new Counter(1, position));
+        } else {
+            counter.count++;
+            if (position < counter.firstPosition) {
+                counter.firstPosition = position;
+            }
+        }
+    }
+
+    /**
+     * Слить другой частичный результат в этот
+     */
+    PartialSpeciesCount merge(PartialSpeciesCount other) {
+        for (Map.Entry<String, Counter> entry : other.counters.entrySet()) {
+            Counter theirs = entry.getValue();
+            Counter ours = counters.get(entry.getKey());
+            if (ours == null) {
+                counters.put(entry.getKey(), new Counter(theirs.count, theirs.firstPosition));
+            } else {
+                ours.count += theirs.count;
+                ours.firstPosition = Math.min(ours.firstPosition, theirs.firstPosition);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Итог в привычном виде: LinkedHashMap в порядке первого появления
+     */
+    LinkedHashMap<String, Integer> toOrderedMap() {
+        List<Map.Entry<String, Counter>> entries = new ArrayList<>(counters.entrySet());
+        entries.sort((a, b) -> Long.compare(a.getValue().firstPosition, b.getValue().firstPosition));
+
+        LinkedHashMap<String, Integer> speciesCount = new LinkedHashMap<>();
+        for (Map.Entry<String, Counter> entry : entries) {
+            speciesCount.put(entry.getKey(), Math.toIntExact(entry.getValue().count));
+        }
+        return speciesCount;
+    }
+
+    private static final class Counter {
+        long count;
+        long firstPosition;
+
+        Counter(long count, long firstPosition) {
+            this.count = count;
+            this.firstPosition = firstPosition;
+        }
+    }
+}
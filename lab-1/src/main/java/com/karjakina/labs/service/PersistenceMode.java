@@ -0,0 +1,13 @@
+package com.karjakina.labs.service;
+
+/**
+ * Способ сохранения изменений в CharacterCrudManager
+ */
+public enum PersistenceMode {
+
+    // Каждое изменение перезаписывает CSV целиком
+    REWRITE,
+
+    // Изменения дописываются в журнал characters.csv.wal, CSV обновляется фоновым сжатием
+    JOURNAL
+}
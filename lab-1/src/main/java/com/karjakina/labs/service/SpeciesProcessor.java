@@ -2,15 +2,22 @@ package com.karjakina.labs.service;
 
 import com.karjakina.labs.model.RickMortyCharacter;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
 
 /**
  * Процессор для обработки данных персонажей
  * Использует LinkedHashMap для сохранения порядка первого появления
  */
 public class SpeciesProcessor {
+    // Размер куска, который один поток считает без дальнейшего деления
+    private static final int PARALLEL_SLICE_SIZE = 10_000;
     
     /**
      * Подсчитывает количество персонажей по видам в порядке их первого появления
@@ -19,20 +26,102 @@ public class SpeciesProcessor {
         LinkedHashMap<String, Integer> speciesCount = new LinkedHashMap<>();
         
         for (RickMortyCharacter character : characters) {
-            String species = character.getSpecies();
-            
+            countSpecies(speciesCount, character);
+        }
+        
+        return speciesCount;
+    }
+
+    /**
+     * То же самое, но по потоку персонажей (например, из CsvReader.streamCharacters),
+     * без загрузки всего файла в память
+     */
+    public LinkedHashMap<String, Integer> countSpeciesInOrder(Stream<RickMortyCharacter> characters) {
+        LinkedHashMap<String, Integer> speciesCount = new LinkedHashMap<>();
+        characters.forEachOrdered(character -> countSpecies(speciesCount, character));
+        return speciesCount;
+    }
+
+    /**
+     * То же самое по колонкам (см. CharacterColumns): счёт идёт по массиву кодов видов.
+     * Коды словаря выданы в порядке первого появления, поэтому порядок совпадает
+     */
+    public LinkedHashMap<String, Integer> countSpeciesInOrder(CharacterColumns columns) {
+        CharacterColumns.CodedColumn species = columns.species();
+        int[] counts = species.counts();
+
+        LinkedHashMap<String, Integer> speciesCount = new LinkedHashMap<>();
+        for (int code = 0; code < counts.length; code++) {
+            String value = species.dictionary().value(code);
             // Пропускаем персонажей без указанного вида
-            if (species == null || species.isEmpty()) {
-                continue;
+            if (counts[code] > 0 && !value.isEmpty()) {
+                speciesCount.put(value, counts[code]);
             }
-            
-            // getOrDefault для увеличения счётчика
-            // LinkedHashMap сохраняет порядок вставки ключей
-            speciesCount.put(species, speciesCount.getOrDefault(species, 0) + 1);
         }
-        
         return speciesCount;
     }
+
+    /**
+     * Параллельный подсчёт: каждый поток считает свой кусок списка в PartialSpeciesCount,
+     * затем частичные результаты сливаются. Порядок первого появления сохраняется.
+     * Пул общий с ParallelCsvReader (см. ForkJoinPools)
+     */
+    public LinkedHashMap<String, Integer> countSpeciesInOrderParallel(List<RickMortyCharacter> characters,
+                                                                     int parallelism) {
+        ForkJoinPool pool = ForkJoinPools.forParallelism(parallelism);
+        // Делить на куски по индексу имеет смысл только для списков с быстрым доступом
+        List<RickMortyCharacter> slices = characters instanceof RandomAccess ? characters : new ArrayList<>(characters);
+
+        return pool.invoke(new SpeciesCountTask(slices, 0, slices.size())).toOrderedMap();
+    }
+
+    private void countSpecies(LinkedHashMap<String, Integer> speciesCount, RickMortyCharacter character) {
+        String species = character.getSpecies();
+
+        // Пропускаем персонажей без указанного вида
+        if (species == null || species.isEmpty()) {
+            return;
+        }
+
+        // getOrDefault для увеличения счётчика
+        // LinkedHashMap сохраняет порядок вставки ключей
+        speciesCount.put(species, speciesCount.getOrDefault(species, 0) + 1);
+    }
+    
+    /**
+     * Подсчёт видов на отрезке [from, to) списка с делением пополам до PARALLEL_SLICE_SIZE
+     */
+    private static class SpeciesCountTask extends RecursiveTask<PartialSpeciesCount> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<RickMortyCharacter> characters;
+        private final int from;
+        private final int to;
+
+        SpeciesCountTask(List<RickMortyCharacter> characters, int from, int to) {
+            this.characters = characters;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PartialSpeciesCount compute() {
+            if (to - from <= PARALLEL_SLICE_SIZE) {
+                PartialSpeciesCount partial = new PartialSpeciesCount();
+                for (int i = from; i < to; i++) {
+                    partial.add(characters.get(i).getSpecies(), i);
+                }
+                return partial;
+            }
+
+            int middle = (from + to) >>> 1;
+            SpeciesCountTask left = new SpeciesCountTask(characters, from, middle);
+            SpeciesCountTask right = new SpeciesCountTask(characters, middle, to);
+            left.fork();
+            PartialSpeciesCount rightResult = right.compute();
+            return left.join().merge(rightResult);
+        }
+    }
     
     /**
      * Выводит статистику по видам в консоль
@@ -0,0 +1,66 @@
+package com.karjakina.labs.service;
+
+/**
+ * Снимок показателей одной стадии IngestionPipeline
+ */
+public class StageStats {
+    private final String name;
+    private final String unit;
+    private final long processed;
+    private final long elapsedNanos;
+    private final int queueDepth;
+    private final int peakQueueDepth;
+
+    public StageStats(String name, String unit, long processed, long elapsedNanos, int queueDepth,
+                      int peakQueueDepth) {
+        this.name = name;
+        this.unit = unit;
+        this.processed = processed;
+        this.elapsedNanos = elapsedNanos;
+        this.queueDepth = queueDepth;
+        this.peakQueueDepth = peakQueueDepth;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * В чём считается processed: символы для чтения, записи для разбора и подсчёта
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Пропускная способность: processed в секунду
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : processed * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    /**
+     * Сколько элементов сейчас ждёт в выходной очереди стадии
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getPeakQueueDepth() {
+        return peakQueueDepth;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-10s %,14d %-8s %,14.0f %s/с  очередь %d (макс. %d)",
+                name, processed, unit, getThroughput(), unit, queueDepth, peakQueueDepth);
+    }
+}
@@ -0,0 +1,144 @@
+package com.karjakina.labs.service;
+
+import java.util.Arrays;
+
+/**
+ * Словарь повторяющихся строковых значений (status, species, gender и т.п.).
+ *
+ * Каждое различное значение хранится один раз и получает небольшой код 0, 1, 2...
+ * в порядке первого появления. Поиск идёт прямо по участку char[] из буфера разборщика,
+ * поэтому для уже известного значения новая строка не создаётся.
+ * Класс не потокобезопасен: один словарь на один поток разбора.
+ */
+public class StringDictionary {
+    // Код для отсутствующего значения (null)
+    public static final int NULL_CODE = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private String[] values = new String[INITIAL_CAPACITY / 2];
+    private int[] hashes = new int[INITIAL_CAPACITY / 2];
+    private int size;
+
+    // Открытая адресация: код + 1, 0 — пустая ячейка
+    private int[] table = new int[INITIAL_CAPACITY];
+
+    /**
+     * Код значения из участка [start, end) массива, значение добавляется при первом появлении
+     */
+    public int code(char[] chars, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+
+        int mask = table.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return add(new String(chars, start, end - start), hash, slot);
+            }
+            int code = entry - 1;
+            if (hashes[code] == hash && equals(values[code], chars, start, end)) {
+                return code;
+            }
+        }
+    }
+
+    /**
+     * Код готовой строки, null кодируется как NULL_CODE
+     */
+    public int code(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        // Хэш совпадает с String.hashCode, так что значения из обоих методов не дублируются
+        int hash = value.hashCode();
+
+        int mask = table.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return add(value, hash, slot);
+            }
+            int code = entry - 1;
+            if (hashes[code] == hash && values[code].equals(value)) {
+                return code;
+            }
+        }
+    }
+
+    /**
+     * Единственный экземпляр строки с таким содержимым
+     */
+    public String intern(char[] chars, int start, int end) {
+        // Код вычисляется до обращения к values: добавление значения может заменить массив
+        int code = code(chars, start, end);
+        return values[code];
+    }
+
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int code = code(value);
+        return values[code];
+    }
+
+    public String value(int code) {
+        return code == NULL_CODE ? null : values[code];
+    }
+
+    /**
+     * Количество различных значений
+     */
+    public int size() {
+        return size;
+    }
+
+    private int add(String value, int hash, int slot) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int code = size++;
+        values[code] = value;
+        hashes[code] = hash;
+        table[slot] = code + 1;
+
+        // Заполнение таблицы не больше половины
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return code;
+    }
+
+    private void rehash() {
+        int[] newTable = new int[table.length * 2];
+        int mask = newTable.length - 1;
+        for (int code = 0; code < size; code++) {
+            int slot = spread(hashes[code]) & mask;
+            while (newTable[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newTable[slot] = code + 1;
+        }
+        table = newTable;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equals(String value, char[] chars, int start, int end) {
+        if (value.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
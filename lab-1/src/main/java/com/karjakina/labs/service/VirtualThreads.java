@@ -0,0 +1,79 @@
+package com.karjakina.labs.service;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Доступ к виртуальным потокам из кода, собранного под Java 17.
+ *
+ * Executors.newVirtualThreadPerTaskExecutor ищется через reflection один раз при загрузке класса.
+ * На Java 17 (и на 19–20 без --enable-preview) его нет или он не работает —
+ * тогда выдаётся ограниченный пул обычных потоков.
+ */
+public final class VirtualThreads {
+    private static final Method NEW_VIRTUAL_EXECUTOR = findVirtualExecutorFactory();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Поддерживает ли текущая JVM виртуальные потоки
+     */
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_EXECUTOR != null;
+    }
+
+    /**
+     * Исполнитель "поток на задачу": виртуальный, если JVM умеет, иначе пул из fallbackThreads
+     * потоков-демонов с именами name-1, name-2...
+     */
+    public static ExecutorService newPerTaskExecutor(int fallbackThreads, String name) {
+        if (NEW_VIRTUAL_EXECUTOR != null) {
+            ExecutorService executor = invoke(NEW_VIRTUAL_EXECUTOR);
+            if (executor != null) {
+                return executor;
+            }
+        }
+        return newPlatformPool(fallbackThreads, name);
+    }
+
+    /**
+     * Обычный фиксированный пул потоков-демонов
+     */
+    public static ExecutorService newPlatformPool(int threads, String name) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(threads, factory);
+    }
+
+    private static Method findVirtualExecutorFactory() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            // Пробный запуск: в preview-версиях метод есть, но без флага бросает исключение
+            ExecutorService probe = invoke(method);
+            if (probe == null) {
+                return null;
+            }
+            probe.shutdown();
+            return method;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService invoke(Method method) {
+        try {
+            return (ExecutorService) method.invoke(null);
+        } catch (IllegalAccessException | InvocationTargetException | RuntimeException e) {
+            return null;
+        }
+    }
+}
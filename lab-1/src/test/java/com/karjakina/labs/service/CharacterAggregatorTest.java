@@ -0,0 +1,175 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CharacterAggregatorTest {
+
+    private static final LocalDateTime T1 = LocalDateTime.of(2017, 11, 4, 18, 48);
+    private static final LocalDateTime T2 = LocalDateTime.of(2017, 11, 5, 9, 0);
+    private static final LocalDateTime T3 = LocalDateTime.of(2018, 1, 10, 12, 0);
+
+    private final List<RickMortyCharacter> characters = List.of(
+            character(1, "Alien", "Dead", "Earth", T2),
+            character(2, "Human", "Alive", "Earth", T1),
+            character(3, "Alien", "Alive", "Citadel", null),
+            character(4, "Human", "Alive", "Citadel", T3),
+            character(5, "Alien", "Dead", null, T1)
+    );
+
+    @Test
+    void result_shouldGroupByMultipleKeys_inFirstAppearanceOrder() {
+        CharacterAggregator aggregator = new CharacterAggregator();
+        aggregator.groupBy("species-status", RickMortyCharacter::getSpecies, RickMortyCharacter::getStatus).count();
+
+        LinkedHashMap<List<Object>, CharacterAggregator.GroupValues> result =
+                aggregator.aggregate(characters).result("species-status");
+
+        assertEquals(List.of(List.of("Alien", "Dead"), List.of("Human", "Alive"), List.of("Alien", "Alive")),
+                new ArrayList<>(result.keySet()));
+        assertEquals(2, result.get(List.of("Alien", "Dead")).getLong("count"));
+        assertEquals(2, result.get(List.of("Human", "Alive")).getLong("count"));
+        assertEquals(1, result.get(List.of("Alien", "Alive")).getLong("count"));
+    }
+
+    @Test
+    void result_shouldComputeEveryAggregate() {
+        CharacterAggregator aggregator = new CharacterAggregator();
+        aggregator.groupBy("species", RickMortyCharacter::getSpecies)
+                .count()
+                .minCreated()
+                .maxCreated()
+                .distinctCount("origins", RickMortyCharacter::getOriginName);
+
+        LinkedHashMap<List<Object>, CharacterAggregator.GroupValues> result =
+                aggregator.aggregate(characters).result("species");
+
+        CharacterAggregator.GroupValues aliens = result.get(List.of("Alien"));
+        assertEquals(3, aliens.getLong("count"));
+        assertEquals(T1, aliens.getDateTime("minCreated"));
+        assertEquals(T2, aliens.getDateTime("maxCreated"));
+        // null не считается отдельным значением
+        assertEquals(2, aliens.getLong("origins"));
+
+        CharacterAggregator.GroupValues humans = result.get(List.of("Human"));
+        assertEquals(T1, humans.getDateTime("minCreated"));
+        assertEquals(T3, humans.getDateTime("maxCreated"));
+        assertEquals(List.of("count", "minCreated", "maxCreated", "origins"),
+                new ArrayList<>(humans.asMap().keySet()));
+    }
+
+    @Test
+    void result_shouldReturnNullDates_whenGroupHasNoDates() {
+        CharacterAggregator aggregator = new CharacterAggregator();
+        aggregator.groupBy("id", RickMortyCharacter::getId).minCreated().maxCreated();
+
+        CharacterAggregator.GroupValues third = aggregator.aggregate(characters).result("id").get(List.of(3));
+
+        assertNull(third.getDateTime("minCreated"));
+        assertNull(third.getDateTime("maxCreated"));
+    }
+
+    @Test
+    void result_shouldSupportCustomAccumulator() {
+        CharacterAggregator aggregator = new CharacterAggregator();
+        aggregator.groupBy("status", RickMortyCharacter::getStatus).with("ids", () -> new Accumulator() {
+            private final StringBuilder ids = new StringBuilder();
+
+            @Override
+            public void add(RickMortyCharacter character) {
+                ids.append(character.getId());
+            }
+
+            @Override
+            public Object result() {
+                return ids.toString();
+            }
+        });
+
+        LinkedHashMap<List<Object>, CharacterAggregator.GroupValues> result =
+                aggregator.aggregate(characters).result("status");
+
+        assertEquals("15", result.get(List.of("Dead")).get("ids", String.class));
+        assertEquals("234", result.get(List.of("Alive")).get("ids", String.class));
+        assertThrows(ClassCastException.class, () -> result.get(List.of("Dead")).getLong("ids"));
+    }
+
+    @Test
+    void aggregate_shouldGiveSameResult_forStreamAndList() {
+        CharacterAggregator fromList = new CharacterAggregator();
+        fromList.groupBy("origin", RickMortyCharacter::getOriginName).count().maxCreated();
+        CharacterAggregator fromStream = new CharacterAggregator();
+        fromStream.groupBy("origin", RickMortyCharacter::getOriginName).count().maxCreated();
+
+        fromList.aggregate(characters);
+        fromStream.aggregate(characters.stream());
+
+        assertEquals(describe(fromList.result("origin")), describe(fromStream.result("origin")));
+    }
+
+    @Test
+    void groupBy_shouldComputeAllGroupingsInOnePass() {
+        CharacterAggregator aggregator = new CharacterAggregator();
+        aggregator.groupBy("species", RickMortyCharacter::getSpecies).count();
+        aggregator.groupBy("status", RickMortyCharacter::getStatus).count();
+
+        aggregator.aggregate(characters);
+
+        assertEquals(2, aggregator.result("species").size());
+        assertEquals(3, aggregator.result("status").get(List.of("Alive")).getLong("count"));
+    }
+
+    @Test
+    void groupBy_shouldThrow_whenAddedAfterAccept() {
+        CharacterAggregator aggregator = new CharacterAggregator();
+        aggregator.groupBy("species", RickMortyCharacter::getSpecies).count();
+        aggregator.accept(characters.get(0));
+
+        assertThrows(IllegalStateException.class,
+                () -> aggregator.groupBy("status", RickMortyCharacter::getStatus));
+    }
+
+    @Test
+    void with_shouldThrow_whenAddedAfterAccept() {
+        CharacterAggregator aggregator = new CharacterAggregator();
+        CharacterAggregator.Grouping grouping = aggregator.groupBy("species", RickMortyCharacter::getSpecies);
+        aggregator.accept(characters.get(0));
+
+        assertThrows(IllegalStateException.class, grouping::count);
+    }
+
+    @Test
+    void groupBy_shouldRejectDuplicateNamesAndMissingKeys() {
+        CharacterAggregator aggregator = new CharacterAggregator();
+        aggregator.groupBy("species", RickMortyCharacter::getSpecies).count();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> aggregator.groupBy("species", RickMortyCharacter::getStatus));
+        assertThrows(IllegalArgumentException.class, () -> aggregator.groupBy("empty"));
+        assertThrows(IllegalArgumentException.class, () -> aggregator.result("unknown"));
+        assertThrows(IllegalArgumentException.class,
+                () -> aggregator.groupBy("status", RickMortyCharacter::getStatus).count().count());
+    }
+
+    private static String describe(LinkedHashMap<List<Object>, CharacterAggregator.GroupValues> result) {
+        return result.toString();
+    }
+
+    private static RickMortyCharacter character(int id, String species, String status, String origin,
+                                                LocalDateTime created) {
+        RickMortyCharacter character = new RickMortyCharacter();
+        character.setId(id);
+        character.setSpecies(species);
+        character.setStatus(status);
+        character.setOriginName(origin);
+        character.setCreated(created);
+        return character;
+    }
+}
@@ -0,0 +1,85 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CharacterColumnsTest {
+
+    private static final String CSV = "id,name,status,species,type,gender,origin/name,location/name,created\n" +
+            "1,Rick Sanchez,Alive,Human,,Male,Earth (C-137),\"Citadel of \"\"Ricks\"\"\",2017-11-04T18:48:46.250\n" +
+            "2,Abradolf Lincler,unknown,,Genetic experiment,Male,Earth (Replacement Dimension),Testicle Monster Dimension,\n" +
+            "3,Birdperson,Dead,Alien,Birdperson,Male,Bird World,Planet Squanch,2017-11-04T20:45:00.000\n" +
+            "4,Morty Smith,Alive,Human,,Male,unknown,\"Citadel of \"\"Ricks\"\"\",2017-11-04T18:50:21.651\n" +
+            "5,Short\n";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readColumns_shouldMatchRowObjects() throws IOException {
+        Path file = tempDir.resolve("characters.csv");
+        Files.writeString(file, CSV, StandardCharsets.UTF_8);
+        CsvReader reader = new CsvReader();
+
+        List<RickMortyCharacter> characters = reader.readCharacters(file.toString());
+        CharacterColumns columns = reader.readColumns(file.toString());
+
+        assertEquals(characters.size(), columns.size());
+        for (int row = 0; row < columns.size(); row++) {
+            assertEquals(describe(characters.get(row)), describe(columns.get(row)));
+        }
+        assertEquals(describe(characters.get(0)), describe(CharacterColumns.of(characters).get(0)));
+        assertEquals(describe(characters.get(3)), describe(CharacterColumns.of(characters.stream()).get(3)));
+    }
+
+    @Test
+    void codedColumn_shouldShareCodesForEqualValues() {
+        CharacterColumns columns = CharacterColumns.of(List.of(
+                character(1, "Human"), character(2, "Alien"), character(3, "Human"), character(4, null)));
+
+        assertArrayEquals(new int[]{0, 1, 0, StringDictionary.NULL_CODE}, columns.species().codes());
+        assertArrayEquals(new int[]{2, 1}, columns.species().counts());
+        assertEquals(CharacterColumns.NO_CREATED, columns.created()[3]);
+    }
+
+    @Test
+    void countSpeciesInOrder_shouldMatchListVersion() throws IOException {
+        Path file = tempDir.resolve("characters.csv");
+        Files.writeString(file, CSV, StandardCharsets.UTF_8);
+        CsvReader reader = new CsvReader();
+        SpeciesProcessor processor = new SpeciesProcessor();
+
+        assertEquals(processor.countSpeciesInOrder(reader.readCharacters(file.toString())),
+                processor.countSpeciesInOrder(reader.readColumns(file.toString())));
+    }
+
+    @Test
+    void epochMicros_shouldRoundTrip() {
+        LocalDateTime dateTime = LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000);
+
+        assertEquals(dateTime, CharacterColumns.toDateTime(CharacterColumns.toEpochMicros(dateTime)));
+        assertNull(CharacterColumns.toDateTime(CharacterColumns.toEpochMicros(null)));
+    }
+
+    private static RickMortyCharacter character(int id, String species) {
+        RickMortyCharacter character = new RickMortyCharacter();
+        character.setId(id);
+        character.setSpecies(species);
+        return character;
+    }
+
+    private static String describe(RickMortyCharacter c) {
+        return c.getId() + "|" + c.getName() + "|" + c.getStatus() + "|" + c.getSpecies() + "|" + c.getType() + "|"
+                + c.getGender() + "|" + c.getOriginName() + "|" + c.getLocationName() + "|" + c.getCreated();
+    }
+}
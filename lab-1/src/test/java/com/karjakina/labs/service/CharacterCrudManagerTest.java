@@ -0,0 +1,409 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.BatchResult;
+import com.karjakina.labs.model.RickMortyCharacter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CharacterCrudManagerTest {
+
+    private static final String CSV = "id,name,status,species,type,gender,origin/name,location/name,created\n" +
+            "1,Rick Sanchez,Alive,Human,,Male,Earth (C-137),Citadel of Ricks,\n" +
+            "2,Morty Smith,Alive,Human,,Male,unknown,Citadel of Ricks,\n" +
+            "3,Summer Smith,Alive,Human,,Female,Earth (Replacement Dimension),Earth (Replacement Dimension),\n";
+
+    @TempDir
+    Path tempDir;
+
+    private String filePath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path file = tempDir.resolve("characters.csv");
+        Files.writeString(file, CSV, StandardCharsets.UTF_8);
+        filePath = file.toString();
+    }
+
+    // строки с повторяющимся id
+
+    @Test
+    void updateCharacter_shouldKeepDuplicateAndBlankIdRows_whenFileIsRewritten() throws IOException {
+        Files.writeString(Path.of(filePath), CSV +
+                "2,Morty Clone,Dead,Human,,Male,unknown,Citadel of Ricks,\n" +
+                ",No Id One,Alive,Alien,,Male,,,\n" +
+                ",No Id Two,Alive,Alien,,Female,,,\n", StandardCharsets.UTF_8);
+        CharacterCrudManager manager = new CharacterCrudManager();
+        assertEquals(6, manager.countCharacters(filePath));
+
+        RickMortyCharacter summer = manager.readCharacter(filePath, 3).orElseThrow();
+        summer.setStatus("Dead");
+        manager.updateCharacter(filePath, summer);
+
+        List<RickMortyCharacter> rows = new CsvReader().readCharacters(filePath);
+        assertEquals(List.of(1, 2, 3, 2, 0, 0), idsOf(rows));
+        assertEquals(List.of("Rick Sanchez", "Morty Smith", "Summer Smith", "Morty Clone", "No Id One", "No Id Two"),
+                rows.stream().map(RickMortyCharacter::getName).toList());
+        assertEquals("Dead", rows.get(2).getStatus());
+    }
+
+    @Test
+    void deleteCharacter_shouldRemoveFirstRowOfDuplicateId_andExposeTheNext() throws IOException {
+        Files.writeString(Path.of(filePath), CSV +
+                "2,Morty Clone,Dead,Human,,Male,unknown,Citadel of Ricks,\n", StandardCharsets.UTF_8);
+        CharacterCrudManager manager = new CharacterCrudManager();
+        assertEquals("Morty Smith", manager.readCharacter(filePath, 2).orElseThrow().getName());
+
+        manager.deleteCharacter(filePath, 2);
+
+        assertEquals("Morty Clone", manager.readCharacter(filePath, 2).orElseThrow().getName());
+        assertEquals(List.of(1, 3, 2), idsOf(new CsvReader().readCharacters(filePath)));
+        assertEquals(List.of(1, 3, 2), idsOf(manager.findBySpecies(filePath, "Human")));
+        assertEquals(List.of("Morty Clone"),
+                manager.findByStatus(filePath, "Dead").stream().map(RickMortyCharacter::getName).toList());
+    }
+
+    // createCharacters
+
+    @Test
+    void createCharacters_shouldAssignSequentialIds() throws IOException {
+        CharacterCrudManager manager = new CharacterCrudManager();
+
+        List<BatchResult> results = manager.createCharacters(filePath, List.of(character("Birdperson"), character("Squanchy")));
+
+        assertEquals(List.of(4, 5), ids(results));
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == BatchResult.Status.CREATED));
+        assertEquals(5, new CsvReader().readCharacters(filePath).size());
+    }
+
+    // updateCharacters
+
+    @Test
+    void updateCharacters_shouldReportNotFoundPerItem() throws IOException {
+        CharacterCrudManager manager = new CharacterCrudManager();
+        RickMortyCharacter morty = manager.readCharacter(filePath, 2).orElseThrow();
+        morty.setStatus("Dead");
+        RickMortyCharacter missing = character("Nobody");
+        missing.setId(42);
+
+        List<BatchResult> results = manager.updateCharacters(filePath, List.of(morty, missing));
+
+        assertEquals(BatchResult.Status.UPDATED, results.get(0).getStatus());
+        assertEquals(BatchResult.Status.NOT_FOUND, results.get(1).getStatus());
+        assertEquals("Dead", new CsvReader().readCharacters(filePath).get(1).getStatus());
+    }
+
+    // deleteCharacters
+
+    @Test
+    void deleteCharacters_shouldDeleteExistingAndReportMissing() throws IOException {
+        CharacterCrudManager manager = new CharacterCrudManager();
+
+        List<BatchResult> results = manager.deleteCharacters(filePath, new int[]{1, 99, 3});
+
+        assertEquals(List.of(true, false, true), results.stream().map(BatchResult::isSuccess).toList());
+        List<RickMortyCharacter> left = new CsvReader().readCharacters(filePath);
+        assertEquals(1, left.size());
+        assertEquals(2, left.get(0).getId());
+    }
+
+    @Test
+    void deleteCharacters_shouldReuseIdAfterDeletedMaximum() throws IOException {
+        CharacterCrudManager manager = new CharacterCrudManager();
+
+        manager.deleteCharacters(filePath, new int[]{3, 2});
+        RickMortyCharacter birdperson = character("Birdperson");
+        manager.createCharacter(filePath, birdperson);
+
+        assertEquals(2, birdperson.getId());
+    }
+
+    // вторичные индексы
+
+    @Test
+    void findBySpecies_shouldFollowMutations() throws IOException {
+        CharacterCrudManager manager = new CharacterCrudManager();
+        assertEquals(List.of(1, 2, 3), idsOf(manager.findBySpecies(filePath, "Human")));
+
+        RickMortyCharacter rick = manager.readCharacter(filePath, 1).orElseThrow();
+        rick.setSpecies("Alien");
+        manager.updateCharacter(filePath, rick);
+        manager.deleteCharacter(filePath, 3);
+        manager.createCharacter(filePath, character("Birdperson"));
+
+        assertEquals(List.of(2), idsOf(manager.findBySpecies(filePath, "Human")));
+        assertEquals(List.of(1, 3), idsOf(manager.findBySpecies(filePath, "Alien")));
+    }
+
+    @Test
+    void findByStatusAndGender_shouldUseEqualityIndex() throws IOException {
+        CharacterCrudManager manager = new CharacterCrudManager();
+
+        assertEquals(List.of(3), idsOf(manager.findByGender(filePath, "Female")));
+        assertEquals(List.of(1, 2, 3), idsOf(manager.findByStatus(filePath, "Alive")));
+        assertTrue(manager.findByStatus(filePath, "Dead").isEmpty());
+    }
+
+    @Test
+    void findByNamePrefix_shouldIgnoreCase() throws IOException {
+        CharacterCrudManager manager = new CharacterCrudManager();
+        manager.findByNamePrefix(filePath, "m");
+        manager.deleteCharacter(filePath, 2);
+        manager.createCharacter(filePath, character("Mr. Meeseeks"));
+
+        assertEquals(List.of(4), idsOf(manager.findByNamePrefix(filePath, "m")));
+        assertEquals(List.of(3), idsOf(manager.findByNamePrefix(filePath, "SUMMER s")));
+        assertTrue(manager.findByNamePrefix(filePath, "x").isEmpty());
+    }
+
+    // инкрементальные счётчики
+
+    @Test
+    void countSpecies_shouldMatchFullRecount_afterMutations() throws IOException {
+        CharacterCrudManager manager = new CharacterCrudManager();
+        assertEquals(Map.of("Human", 3), manager.countSpecies(filePath));
+
+        manager.createCharacters(filePath, List.of(character("Birdperson"), species("Squanchy", "Cat"),
+                species("Mr. Poopybutthole", "Poopybutthole")));
+        manager.deleteCharacter(filePath, 1);
+        RickMortyCharacter morty = manager.readCharacter(filePath, 2).orElseThrow();
+        morty.setSpecies("Cat");
+        manager.updateCharacter(filePath, morty);
+
+        LinkedHashMap<String, Integer> expected =
+                new SpeciesProcessor().countSpeciesInOrder(new CsvReader().readCharacters(filePath));
+        assertEquals(List.copyOf(expected.entrySet()), List.copyOf(manager.countSpecies(filePath).entrySet()));
+        assertEquals(List.of("Cat", "Human", "Alien", "Poopybutthole"), List.copyOf(manager.countSpecies(filePath).keySet()));
+    }
+
+    @Test
+    void countSpecies_shouldMoveSpeciesBack_whenItsFirstCharacterIsDeleted() throws IOException {
+        CharacterCrudManager manager = new CharacterCrudManager();
+        manager.createCharacters(filePath, List.of(character("Birdperson"), species("Squanchy", "Cat"),
+                character("Gearhead")));
+        assertEquals(List.of("Human", "Alien", "Cat"), List.copyOf(manager.countSpecies(filePath).keySet()));
+
+        manager.deleteCharacters(filePath, new int[]{1, 2, 3, 4});
+
+        assertEquals(List.of("Cat", "Alien"), List.copyOf(manager.countSpecies(filePath).keySet()));
+        assertEquals(1, manager.countSpecies(filePath).get("Alien"));
+    }
+
+    @Test
+    void countSpecies_shouldFollowFirstRow_whenUpdateMovesSpecies() throws IOException {
+        CharacterCrudManager manager = new CharacterCrudManager();
+        SpeciesProcessor processor = new SpeciesProcessor();
+        manager.createCharacters(filePath, List.of(character("Birdperson"), species("Squanchy", "Cat")));
+        assertEquals(List.of("Human", "Alien", "Cat"), List.copyOf(manager.countSpecies(filePath).keySet()));
+
+        // Первая строка файла становится первой строкой Cat, а потом возвращается к Human
+        RickMortyCharacter rick = manager.readCharacter(filePath, 1).orElseThrow();
+        rick.setSpecies("Cat");
+        manager.updateCharacter(filePath, rick);
+        assertEquals(List.copyOf(processor.countSpeciesInOrder(new CsvReader().readCharacters(filePath)).entrySet()),
+                List.copyOf(manager.countSpecies(filePath).entrySet()));
+
+        rick.setSpecies("Human");
+        manager.updateCharacter(filePath, rick);
+        assertEquals(List.copyOf(processor.countSpeciesInOrder(new CsvReader().readCharacters(filePath)).entrySet()),
+                List.copyOf(manager.countSpecies(filePath).entrySet()));
+        assertEquals(List.of("Human", "Alien", "Cat"), List.copyOf(manager.countSpecies(filePath).keySet()));
+    }
+
+    @Test
+    void countSpecies_shouldCountEveryRow_whenIdsRepeat() throws IOException {
+        Files.writeString(Path.of(filePath), CSV +
+                "2,Morty Clone,Dead,Cronenberg,,Male,unknown,Citadel of Ricks,\n" +
+                ",No Id,Alive,Alien,,Male,,,\n" +
+                "1,Rick Clone,Alive,Human,,Male,,,\n", StandardCharsets.UTF_8);
+        CharacterCrudManager manager = new CharacterCrudManager();
+        SpeciesProcessor processor = new SpeciesProcessor();
+        assertEquals(List.copyOf(processor.countSpeciesInOrder(new CsvReader().readCharacters(filePath)).entrySet()),
+                List.copyOf(manager.countSpecies(filePath).entrySet()));
+
+        // Удаляется первая строка id 2, её место занимает Morty Clone
+        manager.deleteCharacter(filePath, 2);
+        RickMortyCharacter clone = manager.readCharacter(filePath, 2).orElseThrow();
+        clone.setSpecies("Human");
+        manager.updateCharacter(filePath, clone);
+
+        assertEquals(List.copyOf(processor.countSpeciesInOrder(new CsvReader().readCharacters(filePath)).entrySet()),
+                List.copyOf(manager.countSpecies(filePath).entrySet()));
+        assertEquals(Map.of("Human", 4, "Alien", 1), manager.countSpecies(filePath));
+    }
+
+    @Test
+    void countBy_shouldMaintainRegisteredCounter() throws IOException {
+        CharacterCrudManager manager = new CharacterCrudManager();
+        assertEquals(Map.of("Male", 2, "Female", 1), manager.countBy(filePath, "gender", RickMortyCharacter::getGender));
+
+        manager.deleteCharacter(filePath, 3);
+
+        assertEquals(Map.of("Male", 2), manager.countBy(filePath, "gender", RickMortyCharacter::getGender));
+        assertEquals(2, manager.countCharacters(filePath));
+    }
+
+    // режим CONCURRENT
+
+    @Test
+    void concurrentMode_shouldAssignUniqueIds_andLoseNoWrites() throws Exception {
+        CharacterCrudManager manager = new CharacterCrudManager(PersistenceMode.REWRITE, ConcurrencyMode.CONCURRENT);
+        int writers = 4;
+        int perWriter = 25;
+
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 2);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < perWriter; i++) {
+                        manager.createCharacter(filePath, character("Clone"));
+                    }
+                    return null;
+                }));
+            }
+            for (int r = 0; r < 2; r++) {
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        // Читатель всегда видит целое состояние: без дыр и повторов в id
+                        List<Integer> seen = idsOf(manager.readAllCharacters(filePath));
+                        assertEquals(seen.size(), new HashSet<>(seen).size());
+                        assertTrue(manager.countCharacters(filePath) >= 3);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int expected = 3 + writers * perWriter;
+        List<Integer> ids = idsOf(manager.readAllCharacters(filePath));
+        assertEquals(expected, ids.size());
+        assertEquals(expected, new HashSet<>(ids).size());
+        assertEquals(expected, new CsvReader().readCharacters(filePath).size());
+    }
+
+    @Test
+    void concurrentMode_shouldSeeEveryChange_throughNextPublishedView() throws IOException {
+        CharacterCrudManager manager = new CharacterCrudManager(PersistenceMode.REWRITE, ConcurrencyMode.CONCURRENT);
+        assertEquals(List.of(1, 2, 3), idsOf(manager.readAllCharacters(filePath)));
+
+        manager.createCharacter(filePath, character("Birdperson"));
+        assertEquals("Birdperson", manager.readCharacter(filePath, 4).orElseThrow().getName());
+
+        manager.deleteCharacter(filePath, 2);
+        assertTrue(manager.readCharacter(filePath, 2).isEmpty());
+        RickMortyCharacter rick = manager.readCharacter(filePath, 1).orElseThrow();
+        rick.setName("Rick Prime");
+        manager.updateCharacter(filePath, rick);
+        assertEquals("Rick Prime", manager.readCharacter(filePath, 1).orElseThrow().getName());
+        assertEquals(List.of(1, 3, 4), idsOf(manager.readAllCharacters(filePath)));
+
+        // Больше изменений, чем снимок держит поверх общей карты, — снимок собирается заново
+        List<RickMortyCharacter> clones = new ArrayList<>();
+        for (int i = 0; i < 1_500; i++) {
+            clones.add(character("Clone " + i));
+        }
+        manager.createCharacters(filePath, clones);
+        assertEquals(1_503, manager.countCharacters(filePath));
+        assertEquals("Clone 1499", manager.readCharacter(filePath, 1_504).orElseThrow().getName());
+        assertTrue(manager.readCharacter(filePath, 2).isEmpty());
+    }
+
+    @Test
+    void concurrentMode_shouldSeeSameSizeRewrite_withinOneMtimeTick() throws IOException {
+        CharacterCrudManager first = new CharacterCrudManager(PersistenceMode.REWRITE, ConcurrencyMode.CONCURRENT);
+        CharacterCrudManager second = new CharacterCrudManager(PersistenceMode.REWRITE, ConcurrencyMode.CONCURRENT);
+        assertEquals("Morty Smith", first.readCharacter(filePath, 2).orElseThrow().getName());
+        FileTime modified = Files.getLastModifiedTime(Path.of(filePath));
+        long size = Files.size(Path.of(filePath));
+
+        RickMortyCharacter morty = second.readCharacter(filePath, 2).orElseThrow();
+        morty.setName("Morty Smyth");
+        second.updateCharacter(filePath, morty);
+        // Как будто запись попала в тот же тик часов файловой системы
+        Files.setLastModifiedTime(Path.of(filePath), modified);
+        assertEquals(size, Files.size(Path.of(filePath)));
+
+        assertEquals("Morty Smyth", first.readCharacter(filePath, 2).orElseThrow().getName());
+    }
+
+    @Test
+    void concurrentMode_shouldSeeWritesOfAnotherManager_onSameJournal() throws IOException {
+        // Два менеджера на одном файле ведут себя как два процесса: общий журнал, общий замок
+        CharacterCrudManager first = new CharacterCrudManager(PersistenceMode.JOURNAL, ConcurrencyMode.CONCURRENT);
+        CharacterCrudManager second = new CharacterCrudManager(PersistenceMode.JOURNAL, ConcurrencyMode.CONCURRENT);
+        assertEquals(3, first.countCharacters(filePath));
+        assertEquals(3, second.countCharacters(filePath));
+
+        first.createCharacter(filePath, character("Birdperson"));
+        second.createCharacter(filePath, character("Squanchy"));
+        first.deleteCharacter(filePath, 1);
+
+        Set<Integer> expected = Set.of(2, 3, 4, 5);
+        assertEquals(expected, new HashSet<>(idsOf(first.readAllCharacters(filePath))));
+        assertEquals(expected, new HashSet<>(idsOf(second.readAllCharacters(filePath))));
+        assertEquals(expected, new HashSet<>(idsOf(
+                new CharacterCrudManager(PersistenceMode.JOURNAL).readAllCharacters(filePath))));
+    }
+
+    @Test
+    void concurrentMode_shouldCompactJournalSynchronously() throws IOException {
+        CharacterCrudManager manager = new CharacterCrudManager(PersistenceMode.JOURNAL, 1, ConcurrencyMode.CONCURRENT);
+
+        manager.createCharacter(filePath, character("Birdperson"));
+
+        assertFalse(Files.exists(Path.of(filePath + ".wal")));
+        assertFalse(Files.exists(Path.of(filePath + ".wal.compacting")));
+        assertEquals(4, new CsvReader().readCharacters(filePath).size());
+        assertEquals(4, manager.countCharacters(filePath));
+    }
+
+    private static RickMortyCharacter character(String name) {
+        RickMortyCharacter character = new RickMortyCharacter();
+        character.setName(name);
+        character.setStatus("Alive");
+        character.setSpecies("Alien");
+        return character;
+    }
+
+    private static RickMortyCharacter species(String name, String species) {
+        RickMortyCharacter character = character(name);
+        character.setSpecies(species);
+        return character;
+    }
+
+    private static List<Integer> idsOf(List<RickMortyCharacter> characters) {
+        return characters.stream().map(RickMortyCharacter::getId).toList();
+    }
+
+    private static List<Integer> ids(List<BatchResult> results) {
+        List<Integer> ids = new ArrayList<>();
+        for (BatchResult result : results) {
+            ids.add(result.getId());
+        }
+        return ids;
+    }
+}
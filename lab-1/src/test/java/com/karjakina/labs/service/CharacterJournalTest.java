@@ -0,0 +1,167 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CharacterJournalTest {
+
+    private static final String CSV = "id,name,status,species,type,gender,origin/name,location/name,created\n" +
+            "1,Rick Sanchez,Alive,Human,,Male,Earth (C-137),Citadel of Ricks,\n" +
+            "2,Morty Smith,Alive,Human,,Male,unknown,Citadel of Ricks,\n" +
+            "3,Summer Smith,Alive,Human,,Female,Earth (Replacement Dimension),Earth (Replacement Dimension),\n";
+
+    @TempDir
+    Path tempDir;
+
+    private String filePath;
+    private Path journalPath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path file = tempDir.resolve("characters.csv");
+        Files.writeString(file, CSV, StandardCharsets.UTF_8);
+        filePath = file.toString();
+        journalPath = Path.of(filePath + ".wal");
+    }
+
+    @Test
+    void journalMode_shouldKeepCsvUntouched_andReplayJournalOnLoad() throws IOException {
+        CharacterCrudManager manager = new CharacterCrudManager(PersistenceMode.JOURNAL);
+
+        manager.createCharacters(filePath, List.of(character("Birdperson"), character("Squanchy")));
+        manager.deleteCharacters(filePath, new int[]{1});
+
+        assertEquals(CSV, Files.readString(Path.of(filePath), StandardCharsets.UTF_8));
+        assertTrue(Files.exists(journalPath));
+
+        List<RickMortyCharacter> reloaded = new CharacterCrudManager(PersistenceMode.JOURNAL).readAllCharacters(filePath);
+        assertEquals(List.of(2, 3, 4, 5), idsOf(reloaded));
+    }
+
+    @Test
+    void journalMode_shouldCompactIntoCsv_whenThresholdExceeded() throws IOException {
+        CharacterCrudManager manager = new CharacterCrudManager(PersistenceMode.JOURNAL, 1);
+
+        manager.createCharacters(filePath, List.of(character("Birdperson")));
+        waitUntilGone(Path.of(filePath + ".wal.compacting"));
+
+        assertEquals(4, new CsvReader().readCharacters(filePath).size());
+        assertEquals(4, new CharacterCrudManager(PersistenceMode.JOURNAL).readAllCharacters(filePath).size());
+    }
+
+    // оборванный хвост журнала
+
+    @Test
+    void load_shouldTruncateTornTail_andAppendAfterLastWholeRecord() throws IOException {
+        new CharacterCrudManager(PersistenceMode.JOURNAL).createCharacters(filePath,
+                List.of(character("Birdperson"), character("Squanchy")));
+        long wholeSize = Files.size(journalPath);
+        // Сбой посреди записи: длина обещает 100 байт, дописаны только 3
+        ByteBuffer torn = ByteBuffer.allocate(Integer.BYTES + 1 + 3);
+        torn.putInt(100).put((byte) 'U').put("4,B".getBytes(StandardCharsets.UTF_8));
+        Files.write(journalPath, torn.array(), StandardOpenOption.APPEND);
+
+        CharacterCrudManager manager = new CharacterCrudManager(PersistenceMode.JOURNAL);
+        assertEquals(List.of(1, 2, 3, 4, 5), idsOf(manager.readAllCharacters(filePath)));
+        assertEquals(wholeSize, Files.size(journalPath));
+
+        manager.createCharacter(filePath, character("Gearhead"));
+
+        List<RickMortyCharacter> reloaded = new CharacterCrudManager(PersistenceMode.JOURNAL).readAllCharacters(filePath);
+        assertEquals(List.of(1, 2, 3, 4, 5, 6), idsOf(reloaded));
+        assertEquals("Gearhead", reloaded.get(5).getName());
+    }
+
+    @Test
+    void load_shouldDropTailRecord_whenCrcDoesNotMatch() throws IOException {
+        new CharacterCrudManager(PersistenceMode.JOURNAL).createCharacters(filePath,
+                List.of(character("Birdperson"), character("Squanchy")));
+        byte[] journal = Files.readAllBytes(journalPath);
+        // Портим последний байт CRC последней записи (Squanchy)
+        journal[journal.length - 1] ^= 1;
+        Files.write(journalPath, journal);
+
+        List<RickMortyCharacter> reloaded = new CharacterCrudManager(PersistenceMode.JOURNAL).readAllCharacters(filePath);
+
+        assertEquals(List.of(1, 2, 3, 4), idsOf(reloaded));
+        assertTrue(Files.size(journalPath) < journal.length);
+    }
+
+    // сбой посреди сжатия
+
+    @Test
+    void load_shouldNotReplayCompactedJournal_whenCrashedBetweenRenameAndDelete() throws IOException {
+        // Две строки с id 2: повторное D 2 удалило бы и оставшуюся
+        Files.writeString(Path.of(filePath), CSV + "2,Morty Clone,Alive,Human,,Male,unknown,Citadel of Ricks,\n",
+                StandardCharsets.UTF_8);
+        CharacterCrudManager manager = new CharacterCrudManager(PersistenceMode.JOURNAL);
+        manager.deleteCharacters(filePath, new int[]{2});
+        List<RickMortyCharacter> state = manager.readAllCharacters(filePath);
+        assertEquals(List.of(1, 3, 2), idsOf(state));
+
+        // Сжатие подменило CSV, но не успело удалить .wal.compacting
+        Path compactingPath = Path.of(filePath + ".wal.compacting");
+        Files.move(journalPath, compactingPath);
+        new CharacterJournal(filePath, new CsvReader(), CharacterJournal.DEFAULT_COMPACTION_THRESHOLD)
+                .writeSnapshot(state, compactingPath);
+        assertTrue(Files.exists(compactingPath));
+
+        List<RickMortyCharacter> reloaded = new CharacterCrudManager(PersistenceMode.JOURNAL).readAllCharacters(filePath);
+
+        assertEquals(List.of(1, 3, 2), idsOf(reloaded));
+        assertEquals("Morty Clone", reloaded.get(2).getName());
+        assertFalse(Files.exists(compactingPath));
+        assertEquals(3, new CsvReader().readCharacters(filePath).size());
+    }
+
+    @Test
+    void load_shouldReplayCompactingJournal_whenCrashedBeforeRename() throws IOException {
+        CharacterCrudManager manager = new CharacterCrudManager(PersistenceMode.JOURNAL);
+        manager.deleteCharacters(filePath, new int[]{2});
+        List<RickMortyCharacter> state = manager.readAllCharacters(filePath);
+
+        // Отметка дописана, но CSV ещё старый — записи журнала должны примениться
+        Path compactingPath = Path.of(filePath + ".wal.compacting");
+        Files.move(journalPath, compactingPath);
+        new CharacterJournal(filePath, new CsvReader(), CharacterJournal.DEFAULT_COMPACTION_THRESHOLD)
+                .writeSnapshot(state, compactingPath);
+        Files.writeString(Path.of(filePath), CSV, StandardCharsets.UTF_8);
+
+        List<RickMortyCharacter> reloaded = new CharacterCrudManager(PersistenceMode.JOURNAL).readAllCharacters(filePath);
+
+        assertEquals(List.of(1, 3), idsOf(reloaded));
+        assertFalse(Files.exists(compactingPath));
+    }
+
+    private static RickMortyCharacter character(String name) {
+        RickMortyCharacter character = new RickMortyCharacter();
+        character.setName(name);
+        character.setStatus("Alive");
+        character.setSpecies("Alien");
+        return character;
+    }
+
+    private static List<Integer> idsOf(List<RickMortyCharacter> characters) {
+        return characters.stream().map(RickMortyCharacter::getId).toList();
+    }
+
+    private static void waitUntilGone(Path path) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (Files.exists(path) && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertFalse(Files.exists(path));
+    }
+}
@@ -0,0 +1,133 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CharacterSnapshotTest {
+
+    private static final String CSV = "id,name,status,species,type,gender,origin/name,location/name,created\n" +
+            "1,Rick Sanchez,Alive,Human,,Male,Earth (C-137),\"Citadel of \"\"Ricks\"\"\",2017-11-04T18:48:46.250\n" +
+            "2,\"Морти, \"\"внук\"\"\",Alive,Human,,Male,unknown,Земля 🌍,2021-03-01T10:15:30.123456\n" +
+            "3,Birdperson,Dead,Alien,Birdperson,Male,Bird World,Planet Squanch,\n" +
+            "4\n";
+
+    @TempDir
+    Path tempDir;
+
+    private Path csv;
+    private Path snapshot;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        csv = tempDir.resolve("characters.csv");
+        Files.writeString(csv, CSV, StandardCharsets.UTF_8);
+        snapshot = CharacterSnapshot.pathFor(csv.toString());
+    }
+
+    @Test
+    void loadCharacters_shouldWriteSnapshot_andReadItBackUnchanged() throws IOException {
+        CsvReader reader = new CsvReader();
+        List<String> expected = describe(reader.readCharacters(csv.toString()));
+
+        assertEquals(expected, describe(reader.loadCharacters(csv.toString())));
+        assertTrue(Files.exists(snapshot));
+
+        assertEquals(expected, describe(reader.loadCharacters(csv.toString())));
+        assertEquals(reader.readColumns(csv.toString()).species().codes().length,
+                reader.loadColumns(csv.toString()).species().codes().length);
+    }
+
+    @Test
+    void loadCharacters_shouldFallBackToCsv_whenSnapshotIsStale() throws IOException {
+        CsvReader reader = new CsvReader();
+        reader.loadCharacters(csv.toString());
+
+        Files.writeString(csv, "5,Squanchy,Alive,Cat-Person,,Male,Planet Squanch,Planet Squanch,\n",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+
+        List<RickMortyCharacter> characters = reader.loadCharacters(csv.toString());
+        assertEquals(5, characters.size());
+        assertEquals("Cat-Person", characters.get(4).getSpecies());
+        assertEquals(5, reader.loadCharacters(csv.toString()).size());
+    }
+
+    @Test
+    void loadCharacters_shouldFallBackToCsv_whenSnapshotIsCorrupted() throws IOException {
+        CsvReader reader = new CsvReader();
+        reader.loadCharacters(csv.toString());
+
+        byte[] data = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(data, data.length / 2));
+
+        assertEquals(describe(reader.readCharacters(csv.toString())), describe(reader.loadCharacters(csv.toString())));
+    }
+
+    @Test
+    void crudManager_shouldKeepMicrosecondsThroughSnapshot() throws IOException {
+        CharacterCrudManager manager = new CharacterCrudManager();
+        RickMortyCharacter created = new RickMortyCharacter();
+        created.setName("Squanchy");
+        created.setCreated(LocalDateTime.of(2024, 5, 6, 7, 8, 9, 123_456_000));
+        manager.createCharacter(csv.toString(), created);
+
+        // Первое чтение разбирает изменённый CSV и пишет снимок, второе читает снимок
+        for (int i = 0; i < 2; i++) {
+            RickMortyCharacter loaded = new CharacterCrudManager().readCharacter(csv.toString(), 5).orElseThrow();
+            assertEquals(created.getCreated(), loaded.getCreated());
+        }
+    }
+
+    @Test
+    void loadCharacters_shouldFallBackToCsv_whenCodeIsOutsideDictionary() throws IOException {
+        CsvReader reader = new CsvReader();
+        CharacterColumns good = reader.readColumns(csv.toString());
+        int[] badCodes = good.species().codes().clone();
+        badCodes[0] = good.species().dictionary().size() + 7;
+        CharacterColumns bad = new CharacterColumns(good.ids(), good.names(), good.status(),
+                new CharacterColumns.CodedColumn(badCodes, good.species().dictionary()), good.type(),
+                good.gender(), good.origin(), good.location(), good.created(), null);
+        CharacterSnapshot.write(snapshot, bad, Files.size(csv), Files.getLastModifiedTime(csv).toMillis());
+
+        assertEquals(describe(reader.readCharacters(csv.toString())), describe(reader.loadCharacters(csv.toString())));
+    }
+
+    @Test
+    void crudManager_shouldKeepNanosecondsThroughSnapshot() throws IOException {
+        CharacterCrudManager manager = new CharacterCrudManager();
+        RickMortyCharacter created = new RickMortyCharacter();
+        created.setName("Squanchy");
+        created.setCreated(LocalDateTime.of(2024, 5, 6, 7, 8, 9, 123_456_789));
+        manager.createCharacter(csv.toString(), created);
+
+        for (int i = 0; i < 2; i++) {
+            RickMortyCharacter loaded = new CharacterCrudManager().readCharacter(csv.toString(), 5).orElseThrow();
+            assertEquals(created.getCreated(), loaded.getCreated());
+        }
+        // Сохранение после загрузки из снимка не должно срезать наносекунды в CSV
+        new CharacterCrudManager().deleteCharacter(csv.toString(), 1);
+        assertEquals(created.getCreated(), new CsvReader().readCharacters(csv.toString()).get(3).getCreated());
+    }
+
+    private static List<String> describe(List<RickMortyCharacter> characters) {
+        return characters.stream()
+                .map(c -> c.getId() + "|" + c.getName() + "|" + c.getStatus() + "|" + c.getSpecies() + "|"
+                        + c.getType() + "|" + c.getGender() + "|" + c.getOriginName() + "|"
+                        + c.getLocationName() + "|" + c.getCreated())
+                .toList();
+    }
+}
@@ -0,0 +1,115 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    private static final String HEADER = "id,name,status,species,type,gender,origin/name,location/name,created\n";
+    private static final String[] SPECIES = {"Human", "Alien", "\"Robot, mk2\"", "", "Cronenberg"};
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Файл заметно больше буфера разборщика, чтобы чтение шло в несколько заходов
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int id = 1; id <= 5_000; id++) {
+            csv.append(id).append(",Character ").append(id).append(",Alive,")
+                    .append(SPECIES[id * 7 % SPECIES.length]).append(",,Male,Earth,Citadel of Ricks,")
+                    .append(id % 3 == 0 ? "2017-11-04T18:48:46.250Z" : "").append('\n');
+        }
+        file = tempDir.resolve("characters.csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+    }
+
+    // streamCharacters
+
+    @Test
+    void streamCharacters_shouldMatchReadCharacters() throws IOException {
+        CsvReader reader = new CsvReader();
+        List<RickMortyCharacter> expected = reader.readCharacters(file.toString());
+
+        List<RickMortyCharacter> streamed;
+        try (Stream<RickMortyCharacter> characters = reader.streamCharacters(file.toString())) {
+            streamed = characters.toList();
+        }
+
+        assertEquals(describe(expected), describe(streamed));
+    }
+
+    @Test
+    void streamCharacters_shouldStopEarly_whenOnlyFirstIsNeeded() throws IOException {
+        // Вторая строка не разбирается: readCharacters на ней падает, ленивый поток до неё не доходит
+        Files.writeString(file, HEADER + "1,Rick Sanchez,Alive,Human,,Male,,,\nnot-a-number,Broken,,,,,,,\n",
+                StandardCharsets.UTF_8);
+        CsvReader reader = new CsvReader();
+        assertThrows(NumberFormatException.class, () -> reader.readCharacters(file.toString()));
+
+        try (Stream<RickMortyCharacter> characters = reader.streamCharacters(file.toString())) {
+            assertEquals("Rick Sanchez", characters.findFirst().orElseThrow().getName());
+        }
+    }
+
+    @Test
+    void streamCharacters_shouldReleaseReader_onClose() throws IOException {
+        Stream<RickMortyCharacter> characters = new CsvReader().streamCharacters(file.toString());
+        Iterator<RickMortyCharacter> iterator = characters.iterator();
+        assertEquals(1, iterator.next().getId());
+
+        characters.close();
+
+        // Дальше буфера читать уже не из чего: файл закрыт
+        assertThrows(UncheckedIOException.class, () -> iterator.forEachRemaining(character -> { }));
+    }
+
+    // forEachCharacter
+
+    @Test
+    void forEachCharacter_shouldVisitRowsInFileOrder() throws IOException {
+        CsvReader reader = new CsvReader();
+        List<RickMortyCharacter> visited = new ArrayList<>();
+
+        reader.forEachCharacter(file.toString(), visited::add);
+
+        assertEquals(5_000, visited.size());
+        assertEquals(describe(reader.readCharacters(file.toString())), describe(visited));
+        assertEquals(describe(new CsvReader(true).readCharacters(file.toString())), describe(visited));
+    }
+
+    // SpeciesProcessor по потоку
+
+    @Test
+    void countSpeciesInOrder_shouldMatchListVersion_onStream() throws IOException {
+        CsvReader reader = new CsvReader();
+        SpeciesProcessor processor = new SpeciesProcessor();
+
+        try (Stream<RickMortyCharacter> characters = reader.streamCharacters(file.toString())) {
+            assertEquals(List.copyOf(processor.countSpeciesInOrder(reader.readCharacters(file.toString())).entrySet()),
+                    List.copyOf(processor.countSpeciesInOrder(characters).entrySet()));
+        }
+    }
+
+    private static List<String> describe(List<RickMortyCharacter> characters) {
+        return characters.stream()
+                .map(c -> c.getId() + "|" + c.getName() + "|" + c.getSpecies() + "|" + c.getCreated())
+                .toList();
+    }
+}
@@ -0,0 +1,121 @@
+package com.karjakina.labs.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvTokenizerTest {
+
+    @Test
+    void next_shouldSplitLikeLegacySplitCsvLine() throws IOException {
+        String[] lines = {
+                "1,Rick Sanchez,Alive",
+                "2,\"Smith, Morty\",Alive",
+                "3,\"Earth \"\"C-137\"\"\",Human",
+                "4,,,",
+                "5,a,",
+                ",",
+                "\"\"",
+                "\"\"\"\"",
+                "6,\"\"\"Tiny\"\" Rick\",x",
+                "7,say \"\"hi\"\",y",
+                "8,\"unterminated, quote",
+                "9,\"a\"b\"c\",d",
+                ""
+        };
+
+        for (String line : lines) {
+            assertEquals(legacySplit(line), tokenize(line), line);
+        }
+    }
+
+    @Test
+    void next_shouldSplitLikeLegacySplitCsvLine_onRandomLines() throws IOException {
+        char[] alphabet = {'a', 'б', ' ', ',', '"'};
+        Random random = new Random(3);
+
+        for (int n = 0; n < 20_000; n++) {
+            StringBuilder line = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int i = 0; i < length; i++) {
+                line.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            assertEquals(legacySplit(line.toString()), tokenize(line.toString()), line.toString());
+        }
+    }
+
+    @Test
+    void next_shouldKeepNewlineInsideQuotes() throws IOException {
+        // Отличие от splitCsvLine: тот получал файл построчно через readLine
+        // и разрывал такую запись на две
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("1,\"a\nb\",c\n2,d,e\n"), 16);
+
+        assertTrue(tokenizer.next());
+        assertEquals(3, tokenizer.fieldCount());
+        assertEquals("a\nb", tokenizer.getString(1));
+        assertTrue(tokenizer.next());
+        assertEquals("2", tokenizer.getString(0));
+        assertFalse(tokenizer.next());
+    }
+
+    @Test
+    void next_shouldHandleEscapedQuoteOnBufferBoundary() throws IOException {
+        String line = "\"" + "x".repeat(14) + "\"\"y\",z";
+
+        assertEquals(legacySplit(line), tokenize(line, 16));
+    }
+
+    private static List<String> tokenize(String line) throws IOException {
+        return tokenize(line, 64);
+    }
+
+    private static List<String> tokenize(String line, int bufferSize) throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(line), bufferSize);
+        List<String> fields = new ArrayList<>();
+        if (!tokenizer.next()) {
+            fields.add(""); // splitCsvLine на пустой строке даёт одно пустое поле
+            return fields;
+        }
+        for (int i = 0; i < tokenizer.fieldCount(); i++) {
+            fields.add(tokenizer.getString(i));
+        }
+        assertFalse(tokenizer.next());
+        return fields;
+    }
+
+    /**
+     * Прежний CsvReader.splitCsvLine без изменений — эталон для сравнения
+     */
+    private static List<String> legacySplit(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder currentField = new StringBuilder();
+        boolean inQuotes = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (c == '"') {
+                if (i < line.length() - 1 && line.charAt(i + 1) == '"') {
+                    currentField.append('"');
+                    i++;
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else if (c == ',' && !inQuotes) {
+                fields.add(currentField.toString());
+                currentField.setLength(0);
+            } else {
+                currentField.append(c);
+            }
+        }
+
+        fields.add(currentField.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,135 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvWriterTest {
+
+    private static final String[] PIECES = {
+            "Rick", "Morty", ",", "\"", "\"\"", "\n", "\r\n", "\r", " ", "Человек", "🌍", "Citadel of Ricks", ""
+    };
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void saveAllCharacters_shouldRoundTripThroughCsvReader() throws IOException {
+        Random random = new Random(7);
+        List<RickMortyCharacter> characters = new ArrayList<>();
+        for (int id = 1; id <= 5_000; id++) {
+            characters.add(new RickMortyCharacter(id, text(random), text(random), text(random), text(random),
+                    text(random), text(random), text(random), dateTime(random)));
+        }
+        Path file = tempDir.resolve("characters.csv");
+
+        CharacterCrudManager.saveAllCharacters(file.toString(), characters);
+        List<RickMortyCharacter> read = new CsvReader().readCharacters(file.toString());
+
+        assertEquals(characters.size(), read.size());
+        for (int i = 0; i < characters.size(); i++) {
+            assertEquals(describe(characters.get(i)), describe(read.get(i)), "строка " + (i + 1));
+        }
+    }
+
+    @Test
+    void writeCharacter_shouldMatchToCsvLine() throws IOException {
+        Random random = new Random(11);
+        for (int i = 0; i < 2_000; i++) {
+            RickMortyCharacter character = new RickMortyCharacter(random.nextInt(), text(random), text(random),
+                    null, text(random), text(random), text(random), text(random), dateTime(random));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (CsvWriter writer = new CsvWriter(out, 64)) {
+                writer.writeCharacter(character);
+            }
+
+            assertEquals(character.toCsvLine() + System.lineSeparator(), out.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void writeField_shouldHandleFieldsLongerThanBuffer() throws IOException {
+        String longValue = "Рик, ".repeat(1_000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CsvWriter writer = new CsvWriter(out, 64)) {
+            writer.writeField(longValue);
+            writer.writeField(Integer.MIN_VALUE);
+            writer.writeField(LocalDateTime.of(-5, 1, 1, 0, 0));
+            writer.endRecord();
+        }
+
+        assertEquals("\"" + longValue + "\"," + Integer.MIN_VALUE + ",-0005-01-01T00:00" + System.lineSeparator(),
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writeField_shouldWriteOnlyQuotesWithoutWrapping() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CsvWriter writer = new CsvWriter(out, 64)) {
+            writer.writeField("\"");
+            writer.writeField("\"\"");
+            writer.writeField("\"a");
+            writer.endRecord();
+        }
+        String line = out.toString(StandardCharsets.UTF_8).trim();
+
+        assertEquals("\"\",\"\"\"\",\"\"\"a\"", line);
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(line));
+        assertTrue(tokenizer.next());
+        assertEquals("\"", tokenizer.getString(0));
+        assertEquals("\"\"", tokenizer.getString(1));
+        assertEquals("\"a", tokenizer.getString(2));
+    }
+
+    private static String text(Random random) {
+        if (random.nextInt(10) == 0) {
+            return null;
+        }
+        StringBuilder value = new StringBuilder();
+        int pieces = random.nextInt(4);
+        for (int i = 0; i < pieces; i++) {
+            value.append(PIECES[random.nextInt(PIECES.length)]);
+        }
+        return value.toString();
+    }
+
+    private static LocalDateTime dateTime(Random random) {
+        if (random.nextInt(10) == 0) {
+            return null;
+        }
+        LocalDateTime dateTime = LocalDateTime.of(2000 + random.nextInt(30), 1 + random.nextInt(12),
+                1 + random.nextInt(28), random.nextInt(24), random.nextInt(60));
+        return switch (random.nextInt(4)) {
+            case 0 -> dateTime;
+            case 1 -> dateTime.withSecond(random.nextInt(60));
+            case 2 -> dateTime.withNano(random.nextInt(1_000) * 1_000_000);
+            default -> dateTime.withNano(random.nextInt(1_000_000_000));
+        };
+    }
+
+    /**
+     * CsvReader не отличает null от пустой строки, поэтому null сравнивается как ""
+     */
+    private static String describe(RickMortyCharacter c) {
+        return String.join("|", String.valueOf(c.getId()), orEmpty(c.getName()), orEmpty(c.getStatus()),
+                orEmpty(c.getSpecies()), orEmpty(c.getType()), orEmpty(c.getGender()), orEmpty(c.getOriginName()),
+                orEmpty(c.getLocationName()), String.valueOf(c.getCreated()));
+    }
+
+    private static String orEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,109 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestionPipelineTest {
+
+    private static final String HEADER = "id,name,status,species,type,gender,origin/name,location/name,created\n";
+    private static final String[] SPECIES = {"Human", "Alien", "\"Robot, mk2\"", "\"Multi\nline\"", ""};
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void countSpecies_shouldMatchSequentialCount_overAllShards() throws IOException {
+        Random random = new Random(3);
+        List<String> files = new ArrayList<>();
+        for (int shard = 0; shard < 6; shard++) {
+            files.add(writeShard("shard-" + shard + ".csv", random, 50 + random.nextInt(300)));
+        }
+        files.add(writeShard("shard-empty.csv", random, 0));
+        Files.writeString(tempDir.resolve("notes.txt"), "не CSV");
+
+        List<RickMortyCharacter> all = new ArrayList<>();
+        for (String file : IngestionPipeline.listShards(tempDir.toString())) {
+            all.addAll(new CsvReader().readCharacters(file));
+        }
+        LinkedHashMap<String, Integer> expected = new SpeciesProcessor().countSpeciesInOrder(all);
+
+        IngestionPipeline pipeline = new IngestionPipeline(3, 2, 2, 64);
+        LinkedHashMap<String, Integer> actual = pipeline.countSpeciesInDirectory(tempDir.toString());
+
+        assertEquals(List.copyOf(expected.entrySet()), List.copyOf(actual.entrySet()));
+        List<StageStats> stats = pipeline.stats();
+        assertEquals(3, stats.size());
+        assertEquals(all.size(), stats.get(1).getProcessed());
+        assertEquals(all.size(), stats.get(2).getProcessed());
+        assertTrue(stats.get(0).getPeakQueueDepth() <= 2);
+    }
+
+    @Test
+    void virtualMode_shouldHandleHundredsOfSmallShards() throws IOException {
+        Random random = new Random(9);
+        List<String> files = new ArrayList<>();
+        for (int shard = 0; shard < 300; shard++) {
+            files.add(writeShard(String.format("shard-%03d.csv", shard), random, random.nextInt(20)));
+        }
+
+        LinkedHashMap<String, Integer> platform =
+                new IngestionPipeline(4, 2, 4, 1 << 20, ExecutionMode.PLATFORM).countSpecies(files);
+        LinkedHashMap<String, Integer> virtual =
+                new IngestionPipeline(4, 2, 4, 1 << 20, ExecutionMode.VIRTUAL).countSpecies(files);
+
+        assertEquals(List.copyOf(platform.entrySet()), List.copyOf(virtual.entrySet()));
+        // На Java 17 режим VIRTUAL незаметно работает на пуле обычных потоков
+        int feature = Runtime.version().feature();
+        if (feature >= 21) {
+            assertTrue(VirtualThreads.isSupported());
+        } else if (feature < 19) {
+            assertFalse(VirtualThreads.isSupported());
+        }
+    }
+
+    @Test
+    void countSpecies_shouldWriteResultThroughResultWriter() throws IOException {
+        String shard = writeShard("a.csv", new Random(5), 20);
+        Path output = tempDir.resolve("species_count.txt");
+
+        LinkedHashMap<String, Integer> counts = new IngestionPipeline().countSpecies(List.of(shard), output.toString());
+
+        String text = Files.readString(output);
+        for (String species : counts.keySet()) {
+            assertTrue(text.contains(species + " -> " + counts.get(species)));
+        }
+    }
+
+    @Test
+    void countSpecies_shouldFail_whenShardIsMissing() throws IOException {
+        String shard = writeShard("a.csv", new Random(1), 1_000);
+
+        assertThrows(FileNotFoundException.class, () -> new IngestionPipeline(2, 2, 1, 64)
+                .countSpecies(List.of(shard, tempDir.resolve("missing.csv").toString(), shard)));
+    }
+
+    private String writeShard(String name, Random random, int rows) throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 1; i <= rows; i++) {
+            csv.append(i).append(",Character ").append(i).append(",Alive,")
+                    .append(SPECIES[random.nextInt(SPECIES.length)])
+                    .append(",,Male,Earth,Citadel,2017-11-04T18:48:46.250\n");
+        }
+        Path file = tempDir.resolve(name);
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+        return file.toString();
+    }
+}
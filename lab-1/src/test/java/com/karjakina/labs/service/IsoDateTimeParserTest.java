@@ -0,0 +1,76 @@
+package com.karjakina.labs.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IsoDateTimeParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void parse_shouldMatchLocalDateTimeParse_forToStringLayouts() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            LocalDateTime dateTime = LocalDateTime.of(1000 + random.nextInt(9000), 1 + random.nextInt(12),
+                    1 + random.nextInt(28), random.nextInt(24), random.nextInt(60));
+            switch (i % 5) {
+                case 1 -> dateTime = dateTime.withSecond(1 + random.nextInt(59));
+                case 2 -> dateTime = dateTime.withNano((1 + random.nextInt(999)) * 1_000_000);
+                case 3 -> dateTime = dateTime.withNano((1 + random.nextInt(999_999)) * 1_000);
+                case 4 -> dateTime = dateTime.withNano(1 + random.nextInt(999_999_999));
+                default -> { }
+            }
+            String text = dateTime.toString();
+            assertEquals(LocalDateTime.parse(text), IsoDateTimeParser.parse(text), text);
+        }
+    }
+
+    @Test
+    void parse_shouldAcceptShortFractions_andLeapDay() {
+        assertEquals(LocalDateTime.of(2017, 11, 4, 18, 48, 46, 200_000_000),
+                IsoDateTimeParser.parse("2017-11-04T18:48:46.2"));
+        assertEquals(LocalDateTime.of(2024, 2, 29, 0, 0), IsoDateTimeParser.parse("2024-02-29T00:00"));
+    }
+
+    @Test
+    void parse_shouldFallBackToFormatter_forUnusualLayouts() {
+        assertEquals(LocalDateTime.of(12345, 1, 2, 3, 4, 5), IsoDateTimeParser.parse("+12345-01-02T03:04:05"));
+    }
+
+    @Test
+    void parse_shouldReturnNull_forBadDates() {
+        assertNull(IsoDateTimeParser.parse("2023-02-29T00:00"));
+        assertNull(IsoDateTimeParser.parse("2017-13-04T18:48:46"));
+        assertNull(IsoDateTimeParser.parse("2017-11-04T24:00"));
+        assertNull(IsoDateTimeParser.parse("2017-11-04"));
+        assertNull(IsoDateTimeParser.parse("2017-11-04T18:48:46.1234567890"));
+        assertNull(IsoDateTimeParser.parse("not a date"));
+    }
+
+    @Test
+    void csvReader_shouldCountInvalidDates() throws IOException {
+        Path file = tempDir.resolve("characters.csv");
+        Files.writeString(file, "id,name,status,species,type,gender,origin/name,location/name,created\n" +
+                "1,Rick,Alive,Human,,Male,Earth,Citadel,2017-11-04T18:48:46.250\n" +
+                "2,Morty,Alive,Human,,Male,Earth,Citadel,yesterday\n" +
+                "3,Summer,Alive,Human,,Female,Earth,Citadel,\n" +
+                "4,Beth,Alive,Human,,Female,Earth,Citadel,\"2017-02-30T10:00\"\n", StandardCharsets.UTF_8);
+        CsvReader reader = new CsvReader();
+
+        reader.readCharacters(file.toString());
+        assertEquals(2, reader.getInvalidDateCount());
+
+        reader.readCharactersParallel(file.toString(), 2);
+        assertEquals(4, reader.getInvalidDateCount());
+    }
+}
@@ -0,0 +1,80 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedUtf8ReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void read_shouldDecodeCharactersSplitBetweenWindows() throws IOException {
+        // Кириллица — 2 байта, эмодзи — 4 байта: границы окон попадут внутрь символов
+        String text = "Рик и Морти 🛸, Планета Сквонч 🌍\n".repeat(50);
+        Path file = tempDir.resolve("text.csv");
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (long window = 4; window <= 13; window++) {
+                try (Reader reader = new MappedUtf8Reader(channel, 0, channel.size(), window)) {
+                    assertEquals(text, readAll(reader), "размер окна " + window);
+                }
+            }
+        }
+    }
+
+    @Test
+    void read_shouldReturnEndOfStream_forEmptyRange() throws IOException {
+        Path file = tempDir.resolve("empty.csv");
+        Files.writeString(file, "");
+
+        try (Reader reader = new MappedUtf8Reader(file.toString())) {
+            assertEquals(-1, reader.read(new char[8], 0, 8));
+        }
+    }
+
+    @Test
+    void csvReader_memoryMappedMode_shouldMatchDefaultMode() throws IOException {
+        StringBuilder csv = new StringBuilder("id,name,status,species,type,gender,origin/name,location/name,created\n");
+        for (int i = 1; i <= 300; i++) {
+            csv.append(i).append(",Персонаж ").append(i)
+                    .append(",Alive,Human,\"Тип, с \"\"кавычками\"\"\",Male,Земля,Цитадель,2017-11-04T18:48:46.250\n");
+        }
+        Path file = tempDir.resolve("characters.csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+
+        List<RickMortyCharacter> expected = new CsvReader().readCharacters(file.toString());
+        List<RickMortyCharacter> mapped = new CsvReader(true).readCharacters(file.toString());
+
+        assertEquals(300, mapped.size());
+        assertEquals(describe(expected), describe(mapped));
+    }
+
+    private static String readAll(Reader reader) throws IOException {
+        StringBuilder result = new StringBuilder();
+        char[] buffer = new char[7];
+        int read;
+        while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+            result.append(buffer, 0, read);
+        }
+        return result.toString();
+    }
+
+    private static List<String> describe(List<RickMortyCharacter> characters) {
+        return characters.stream().map(RickMortyCharacter::toString).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,89 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelCsvReaderTest {
+
+    private static final String HEADER = "id,name,status,species,type,gender,origin/name,location/name,created\n";
+
+    @TempDir
+    Path tempDir;
+
+    private final CsvReader csvReader = new CsvReader();
+
+    @Test
+    void readCharacters_shouldMatchSequentialReader_onManySmallChunks() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 1; i <= 2000; i++) {
+            csv.append(i).append(",Персонаж ").append(i).append(",Alive,")
+                    .append(i % 3 == 0 ? "Alien" : "Human")
+                    .append(",\"Тип, с запятой\",Male,\"Earth \"\"C-137\"\"\",Citadel,2017-11-04T18:48:46.250\n");
+        }
+        Path file = write(csv.toString());
+
+        List<RickMortyCharacter> sequential = csvReader.readCharacters(file.toString());
+        List<RickMortyCharacter> parallel = new ParallelCsvReader(4, 256).readCharacters(file.toString());
+
+        assertEquals(2000, parallel.size());
+        assertEquals(describe(sequential), describe(parallel));
+    }
+
+    @Test
+    void readCharacters_shouldNotSplitInsideQuotedNewlines() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 1; i <= 500; i++) {
+            csv.append(i).append(",\"Имя\nна двух строках\",Dead,Human,,Female,\"a\n\nb\",c,\n");
+        }
+        Path file = write(csv.toString());
+
+        List<RickMortyCharacter> sequential = csvReader.readCharacters(file.toString());
+        List<RickMortyCharacter> parallel = new ParallelCsvReader(3, 64).readCharacters(file.toString());
+
+        assertEquals(500, parallel.size());
+        assertEquals("Имя\nна двух строках", parallel.get(499).getName());
+        assertEquals(describe(sequential), describe(parallel));
+    }
+
+    @Test
+    void readCharacters_shouldReturnEmptyList_whenOnlyHeader() throws IOException {
+        Path file = write(HEADER);
+
+        assertTrue(new ParallelCsvReader(2, 16).readCharacters(file.toString()).isEmpty());
+    }
+
+    @Test
+    void constructor_shouldRejectNonPositiveParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelCsvReader(0));
+    }
+
+    @Test
+    void forParallelism_shouldReusePool_forSameParallelism() {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism() + 1;
+
+        assertSame(ForkJoinPools.forParallelism(parallelism), ForkJoinPools.forParallelism(parallelism));
+        assertSame(ForkJoinPool.commonPool(), ForkJoinPools.forParallelism(ForkJoinPool.getCommonPoolParallelism()));
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = tempDir.resolve("characters.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    // equals у RickMortyCharacter сравнивает только id, поэтому сравниваем полное описание
+    private static List<String> describe(List<RickMortyCharacter> characters) {
+        return characters.stream().map(RickMortyCharacter::toString).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,96 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpeciesProcessorTest {
+
+    private final SpeciesProcessor processor = new SpeciesProcessor();
+
+    @Test
+    void countSpeciesInOrderParallel_shouldMatchSequential_onRandomInput() {
+        Random random = new Random(5);
+        for (int run = 0; run < 5; run++) {
+            List<RickMortyCharacter> characters = randomCharacters(random, 50_000 + random.nextInt(50_000));
+
+            LinkedHashMap<String, Integer> sequential = processor.countSpeciesInOrder(characters);
+            LinkedHashMap<String, Integer> parallel = processor.countSpeciesInOrderParallel(characters, 8);
+
+            assertEquals(new ArrayList<>(sequential.entrySet()), new ArrayList<>(parallel.entrySet()));
+        }
+    }
+
+    @Test
+    void countSpeciesInOrderParallel_shouldKeepOrder_whenSpeciesFirstAppearsInLaterChunk() {
+        List<RickMortyCharacter> characters = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            String species = i < 90_000 ? "Human" : (i % 2 == 0 ? "Alien" : "Robot");
+            characters.add(character(i, species));
+        }
+        // Вид из последнего куска, который встречается и в первом — порядок по первому появлению
+        characters.set(3, character(3, "Robot"));
+
+        LinkedHashMap<String, Integer> parallel = processor.countSpeciesInOrderParallel(characters, 16);
+
+        assertEquals(List.of("Human", "Robot", "Alien"), new ArrayList<>(parallel.keySet()));
+        assertEquals(new ArrayList<>(processor.countSpeciesInOrder(characters).entrySet()),
+                new ArrayList<>(parallel.entrySet()));
+    }
+
+    @Test
+    void countSpeciesInOrderParallel_shouldAcceptNonRandomAccessList() {
+        List<RickMortyCharacter> characters = new LinkedList<>(randomCharacters(new Random(9), 30_000));
+
+        assertEquals(new ArrayList<>(processor.countSpeciesInOrder(characters).entrySet()),
+                new ArrayList<>(processor.countSpeciesInOrderParallel(characters, 4).entrySet()));
+    }
+
+    @Test
+    void countSpeciesInOrderParallel_shouldRejectNonPositiveParallelism() {
+        assertThrows(IllegalArgumentException.class,
+                () -> processor.countSpeciesInOrderParallel(List.of(), 0));
+    }
+
+    @Test
+    void merge_shouldNotDependOnOrder() {
+        PartialSpeciesCount left = new PartialSpeciesCount();
+        left.add("Human", 0);
+        left.add("Alien", 5);
+        PartialSpeciesCount right = new PartialSpeciesCount();
+        right.add("Robot", 10);
+        right.add("Alien", 2);
+        right.add("", 1);
+
+        PartialSpeciesCount merged = new PartialSpeciesCount().merge(right).merge(left);
+
+        assertEquals(List.of("Human", "Alien", "Robot"), new ArrayList<>(merged.toOrderedMap().keySet()));
+        assertEquals(2, merged.toOrderedMap().get("Alien"));
+    }
+
+    private static List<RickMortyCharacter> randomCharacters(Random random, int count) {
+        List<RickMortyCharacter> characters = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Число видов растёт к концу списка, так что новые виды появляются в поздних кусках
+            int kinds = 1 + i / 2_000;
+            String species = random.nextInt(50) == 0 ? (random.nextBoolean() ? null : "")
+                    : "Species " + random.nextInt(kinds);
+            characters.add(character(i, species));
+        }
+        return characters;
+    }
+
+    private static RickMortyCharacter character(int id, String species) {
+        RickMortyCharacter character = new RickMortyCharacter();
+        character.setId(id);
+        character.setSpecies(species);
+        return character;
+    }
+}
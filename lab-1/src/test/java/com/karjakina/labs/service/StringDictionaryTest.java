@@ -0,0 +1,89 @@
+package com.karjakina.labs.service;
+
+import com.karjakina.labs.model.RickMortyCharacter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringDictionaryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void code_shouldBeAssignedInOrderOfFirstAppearance() {
+        StringDictionary dictionary = new StringDictionary();
+        char[] chars = "xHumanAlienHuman".toCharArray();
+
+        assertEquals(0, dictionary.code(chars, 1, 6));
+        assertEquals(1, dictionary.code(chars, 6, 11));
+        assertEquals(0, dictionary.code(chars, 11, 16));
+        assertEquals(0, dictionary.code("Human"));
+        assertEquals(StringDictionary.NULL_CODE, dictionary.code(null));
+        assertEquals("Alien", dictionary.value(1));
+        assertNull(dictionary.value(StringDictionary.NULL_CODE));
+        assertEquals(2, dictionary.size());
+    }
+
+    @Test
+    void code_shouldSurviveRehash() {
+        StringDictionary dictionary = new StringDictionary();
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, dictionary.code("value-" + i));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            char[] chars = ("value-" + i).toCharArray();
+            assertEquals(i, dictionary.code(chars, 0, chars.length));
+        }
+        assertEquals(10_000, dictionary.size());
+    }
+
+    @Test
+    void intern_shouldReturnNewValues_whenStorageGrows() {
+        StringDictionary dictionary = new StringDictionary();
+        for (int i = 0; i < 1_000; i++) {
+            char[] chars = ("value-" + i).toCharArray();
+            assertEquals("value-" + i, dictionary.intern(chars, 0, chars.length));
+            assertEquals("other-" + i, dictionary.intern("other-" + i));
+        }
+    }
+
+    @Test
+    void intern_shouldReturnSameInstance_afterStorageGrows() {
+        // Больше начального запаса значений: первые экземпляры должны пережить рост массива
+        StringDictionary dictionary = new StringDictionary();
+        String[] first = new String[100];
+        for (int i = 0; i < first.length; i++) {
+            char[] chars = ("species-" + i).toCharArray();
+            first[i] = dictionary.intern(chars, 0, chars.length);
+        }
+        for (int i = 0; i < first.length; i++) {
+            char[] chars = ("species-" + i).toCharArray();
+            assertSame(first[i], dictionary.intern(chars, 0, chars.length));
+            assertSame(first[i], dictionary.intern(new String("species-" + i)));
+        }
+        assertEquals(first.length, dictionary.size());
+    }
+
+    @Test
+    void readCharacters_shouldShareRepeatedValues() throws IOException {
+        Path file = tempDir.resolve("characters.csv");
+        Files.writeString(file, "id,name,status,species,type,gender,origin/name,location/name,created\n" +
+                "1,Rick Sanchez,Alive,Human,,Male,Earth (C-137),\"Citadel of Ricks\",\n" +
+                "2,Morty Smith,Alive,Human,,Male,unknown,Citadel of Ricks,\n", StandardCharsets.UTF_8);
+
+        List<RickMortyCharacter> characters = new CsvReader().readCharacters(file.toString());
+
+        assertSame(characters.get(0).getSpecies(), characters.get(1).getSpecies());
+        assertSame(characters.get(0).getStatus(), characters.get(1).getStatus());
+        assertSame(characters.get(0).getLocationName(), characters.get(1).getLocationName());
+        assertEquals("Citadel of Ricks", characters.get(0).getLocationName());
+    }
+}
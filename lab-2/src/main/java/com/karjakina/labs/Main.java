@@ -1,7 +1,7 @@
 package com.karjakina.labs;
 
-import com.karjakina.labs.dao.BuildingRepository;
 import com.karjakina.labs.dao.BuildingRepositoryJdbc;
+import com.karjakina.labs.dao.CachingBuildingRepository;
 import com.karjakina.labs.db.ConnectionConfig;
 import com.karjakina.labs.entity.BuildingEntity;
 import com.karjakina.labs.exception.BuildingNotFoundException;
@@ -17,11 +17,16 @@ public class Main {
         System.out.println("=== Запуск приложения Building App ===\n");
 
         DataSource dataSource = ConnectionConfig.createDataSource();
-        BuildingRepository buildingRepository = new BuildingRepositoryJdbc(dataSource);
+        // Повторные findById обслуживаются из памяти, без запроса к базе
+        CachingBuildingRepository buildingRepository = new CachingBuildingRepository(
+                new BuildingRepositoryJdbc(dataSource, ConnectionConfig.batchSize()),
+                ConnectionConfig.cacheSize(), ConnectionConfig.cacheTtl());
         BuildingService buildingService = new BuildingServiceImpl(buildingRepository);
 
         demonstrateCrudOperations(buildingService);
 
+        System.out.println("\nКэш репозитория: " + buildingRepository);
+
         System.out.println("\n=== Приложение завершило работу ===");
     }
 
@@ -39,6 +44,15 @@ public class Main {
         int thirdId = buildingService.save("ул. Садовая, д. 7", 3);
         System.out.println("Сохранено здание с id=" + thirdId);
 
+        // CREATE пачкой: одна транзакция, executeBatch вместо запроса на каждое здание
+        System.out.println("\n--- CREATE: сохранение пачкой ---");
+
+        List<Integer> batchIds = buildingService.saveAll(List.of(
+                new BuildingEntity("ул. Гагарина, д. 10", 9),
+                new BuildingEntity("ул. Гагарина, д. 12", 14)
+        ));
+        System.out.println("Сохранены здания с id=" + batchIds);
+
         // READ: findById
         System.out.println("\n--- READ: поиск по id ---");
 
@@ -59,6 +73,17 @@ public class Main {
             System.out.println("  " + building);
         }
 
+        // READ: постранично (keyset) — память не растёт с размером таблицы
+        System.out.println("\n--- READ: постранично по 2 ---");
+
+        int afterId = 0;
+        List<BuildingEntity> page = buildingService.findPage(afterId, 2);
+        while (!page.isEmpty()) {
+            System.out.println("  Страница после id=" + afterId + ": " + page);
+            afterId = page.get(page.size() - 1).getId();
+            page = buildingService.findPage(afterId, 2);
+        }
+
         //  UPDATE
         System.out.println("\n--- UPDATE: обновление здания ---");
 
@@ -83,6 +108,9 @@ public class Main {
         buildingService.deleteById(thirdId);
         System.out.println("Удалено здание id=" + thirdId);
 
+        int deleted = buildingService.deleteAllById(batchIds);
+        System.out.println("Удалено пачкой зданий: " + deleted);
+
         System.out.println("\nЗдания после удаления:");
         buildingService.findAll().forEach(building -> System.out.println("  " + building));
 
@@ -0,0 +1,329 @@
+package com.karjakina.labs.dao;
+
+import com.karjakina.labs.entity.BuildingEntity;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Массовая загрузка зданий (первичное наполнение, ночной переимпорт).
+ *
+ * На PostgreSQL строки уходят одним потоком через COPY building (address, floors) FROM STDIN:
+ * без разбора SQL и без ответа на каждую строку. Строки кодируются в CSV на лету
+ * в буфер фиксированного размера, так что весь набор в памяти не держится.
+ * На других базах (драйвер не pgjdbc) загрузка идёт пачками через BuildingRepository.saveAll.
+ *
+ * Возвращает число загруженных строк, ошибка печатается, как в BuildingRepositoryJdbc.
+ * COPY при ошибке отменяется целиком и возвращается 0. Запасной путь сохраняет куски
+ * по FALLBACK_CHUNK_SIZE строк в отдельных транзакциях: при ошибке откатывается только
+ * текущий кусок, уже сохранённые остаются, и возвращается их число строк. Так же и когда
+ * посреди загрузки падает сам источник (битая строка CSV, ошибка чтения файла).
+ */
+public class BuildingBulkLoader {
+
+    private static final String SQL_COPY =
+            "COPY building (address, floors) FROM STDIN WITH (FORMAT csv)";
+
+    private static final String SQL_COPY_CSV_WITH_HEADER =
+            "COPY building (address, floors) FROM STDIN WITH (FORMAT csv, HEADER true)";
+
+    // Сколько байт копится перед отправкой очередного куска COPY
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    // Сколько зданий за раз передаётся в saveAll при загрузке без COPY
+    private static final int FALLBACK_CHUNK_SIZE = 10_000;
+
+    private final DataSource dataSource;
+    private final BuildingRepository fallbackRepository;
+
+    public BuildingBulkLoader(DataSource dataSource) {
+        this(dataSource, new BuildingRepositoryJdbc(dataSource));
+    }
+
+    public BuildingBulkLoader(DataSource dataSource, BuildingRepository fallbackRepository) {
+        this.dataSource = dataSource;
+        this.fallbackRepository = fallbackRepository;
+    }
+
+    /**
+     * Загрузить здания из итератора (id у зданий игнорируются — их выдаёт база)
+     */
+    public long load(Iterator<BuildingEntity> buildings) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (connection.isWrapperFor(PGConnection.class)) {
+                return copyRows(connection, buildings);
+            }
+        } catch (SQLException e) {
+            System.out.println("Ошибка массовой загрузки: " + e.getMessage());
+            e.printStackTrace();
+            return 0;
+        }
+
+        // Пробное соединение уже вернулось в пул: saveAll берёт своё, и пулу из одного соединения хватает
+        return loadInBatches(buildings);
+    }
+
+    /**
+     * Загрузить здания из CSV файла в UTF-8 с заголовком address,floors.
+     * На PostgreSQL файл уходит в COPY как есть, без разбора на стороне Java
+     */
+    public long loadCsv(Path csvFile) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (connection.isWrapperFor(PGConnection.class)) {
+                try (InputStream input = Files.newInputStream(csvFile)) {
+                    return connection.unwrap(PGConnection.class).getCopyAPI()
+                            .copyIn(SQL_COPY_CSV_WITH_HEADER, input, COPY_BUFFER_SIZE);
+                }
+            }
+        } catch (SQLException | IOException e) {
+            System.out.println("Ошибка загрузки из файла " + csvFile + ": " + e.getMessage());
+            e.printStackTrace();
+            return 0;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            return loadInBatches(new CsvBuildingIterator(reader));
+        } catch (IOException e) {
+            System.out.println("Ошибка загрузки из файла " + csvFile + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return 0;
+    }
+
+    /**
+     * COPY зданий из итератора; при ошибке незавершённый COPY отменяется
+     */
+    private static long copyRows(Connection connection, Iterator<BuildingEntity> buildings) throws SQLException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(SQL_COPY);
+        try {
+            CopyBuffer buffer = new CopyBuffer(copyIn);
+            while (buildings.hasNext()) {
+                BuildingEntity building = buildings.next();
+                buffer.appendField(building.getAddress());
+                buffer.append(',').append(Integer.toString(building.getFloors())).append('\n');
+                buffer.flushIfFull();
+            }
+            buffer.flush();
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    /**
+     * Запасной путь без COPY: saveAll кусками по FALLBACK_CHUNK_SIZE,
+     * каждый кусок — своя транзакция
+     */
+    private long loadInBatches(Iterator<BuildingEntity> buildings) {
+        long loaded = 0;
+        List<BuildingEntity> chunk = new ArrayList<>(FALLBACK_CHUNK_SIZE);
+
+        try {
+            while (buildings.hasNext()) {
+                chunk.add(buildings.next());
+                if (chunk.size() == FALLBACK_CHUNK_SIZE || !buildings.hasNext()) {
+                    List<Integer> ids = fallbackRepository.saveAll(chunk);
+                    if (ids.size() != chunk.size()) {
+                        // saveAll уже напечатал ошибку и откатил кусок
+                        System.out.println("Загрузка остановлена после " + loaded + " строк");
+                        return loaded;
+                    }
+                    loaded += ids.size();
+                    // Новый список, а не clear(): репозиторий мог сохранить ссылку на переданный
+                    chunk = new ArrayList<>(FALLBACK_CHUNK_SIZE);
+                }
+            }
+        } catch (UncheckedIOException | IllegalArgumentException e) {
+            // Источник упал посреди куска: недочитанный кусок не сохраняется, сохранённые остаются
+            System.out.println("Ошибка чтения зданий: " + e.getMessage());
+            e.printStackTrace();
+            System.out.println("Загрузка остановлена после " + loaded + " строк");
+        }
+        return loaded;
+    }
+
+    /**
+     * Строки COPY в формате CSV, отправляются кусками не больше COPY_BUFFER_SIZE байт
+     */
+    private static final class CopyBuffer {
+        private final CopyIn copyIn;
+        private final StringBuilder rows = new StringBuilder(COPY_BUFFER_SIZE);
+
+        CopyBuffer(CopyIn copyIn) {
+            this.copyIn = copyIn;
+        }
+
+        CopyBuffer append(char c) {
+            rows.append(c);
+            return this;
+        }
+
+        CopyBuffer append(String value) {
+            rows.append(value);
+            return this;
+        }
+
+        /**
+         * Значение в кавычках, если в нём есть разделители; пустая строка тоже в кавычках,
+         * иначе COPY прочитает её как NULL
+         */
+        void appendField(String value) {
+            if (value == null) {
+                return;
+            }
+            if (!value.isEmpty() && !needsQuotes(value)) {
+                rows.append(value);
+                return;
+            }
+            rows.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    rows.append('"');
+                }
+                rows.append(c);
+            }
+            rows.append('"');
+        }
+
+        // Символ UTF-16 — не больше трёх байт UTF-8
+        void flushIfFull() throws SQLException {
+            if (rows.length() * 3 >= COPY_BUFFER_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() throws SQLException {
+            if (rows.length() == 0) {
+                return;
+            }
+            byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            rows.setLength(0);
+        }
+
+        // Обратная косая черта — чтобы строка "\." не была принята за конец данных COPY
+        private static boolean needsQuotes(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ',' || c == '"' || c == '\n' || c == '\r' || c == '\\') {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Здания из CSV с заголовком address,floors (кавычки по RFC 4180) — для запасного пути
+     */
+    static final class CsvBuildingIterator implements Iterator<BuildingEntity> {
+        // BufferedReader — ради mark/reset при разборе "" внутри кавычек
+        private final BufferedReader reader;
+        private BuildingEntity next;
+        private boolean headerSkipped;
+
+        CsvBuildingIterator(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                next = readBuilding();
+            }
+            return next != null;
+        }
+
+        @Override
+        public BuildingEntity next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            BuildingEntity building = next;
+            next = null;
+            return building;
+        }
+
+        private BuildingEntity readBuilding() {
+            try {
+                if (!headerSkipped) {
+                    headerSkipped = true;
+                    readRecord();
+                }
+                List<String> fields;
+                do {
+                    fields = readRecord();
+                    if (fields == null) {
+                        return null;
+                    }
+                } while (fields.size() == 1 && fields.get(0).isEmpty()); // пустые строки
+
+                if (fields.size() != 2) {
+                    throw new IllegalArgumentException("Ожидалось 2 поля (address,floors): " + fields);
+                }
+                return new BuildingEntity(fields.get(0), Integer.parseInt(fields.get(1).trim()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Одна запись CSV (перевод строки в кавычках — часть значения) или null в конце файла
+         */
+        private List<String> readRecord() throws IOException {
+            int c = reader.read();
+            if (c < 0) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>(2);
+            StringBuilder field = new StringBuilder();
+            boolean inQuotes = false;
+
+            while (c >= 0) {
+                if (inQuotes) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            inQuotes = false;
+                            reader.reset();
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    inQuotes = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
@@ -3,20 +3,50 @@ package com.karjakina.labs.dao;
 import com.karjakina.labs.entity.BuildingEntity;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface BuildingRepository {
 
     // Create — возвращает id созданной записи
     int save(BuildingEntity building);
 
+    // Create пачкой в одной транзакции — id созданных записей в порядке buildings
+    List<Integer> saveAll(List<BuildingEntity> buildings);
+
     // Read — возвращает null, если запись не найдена
     BuildingEntity findById(int id);
 
+    // Read по точному адресу (индекс по address) — возвращает null, если запись не найдена
+    BuildingEntity findByAddress(String address);
+
+    // Read по адресу без учёта регистра — возвращает null, если запись не найдена
+    BuildingEntity findByAddressIgnoreCase(String address);
+
+    // Read по началу адреса без учёта регистра, не больше limit записей в порядке адреса, затем id
+    List<BuildingEntity> findByAddressPrefix(String prefix, int limit);
+
     List<BuildingEntity> findAll();
 
+    // Read страницы по ключу: до limit записей с id > afterId в порядке id (первая страница — afterId = 0)
+    List<BuildingEntity> findPage(int afterId, int limit);
+
+    // Read всех записей курсором в порядке id, без загрузки таблицы в память.
+    // Stream держит соединение — закрывайте его (try-with-resources)
+    Stream<BuildingEntity> streamAll();
+
+    // То же, что streamAll, но с закрытием внутри: каждая запись передаётся в action
+    void forEach(Consumer<BuildingEntity> action);
+
     // Update — возвращает false, если запись не найдена
     boolean update(BuildingEntity building);
 
+    // Update пачкой в одной транзакции — сколько записей нашлось и обновилось
+    int updateAll(List<BuildingEntity> buildings);
+
     // Delete
     void deleteById(int id);
+
+    // Delete пачкой в одной транзакции — сколько записей удалено
+    int deleteAllById(List<Integer> ids);
 }
@@ -6,6 +6,11 @@ import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class BuildingRepositoryJdbc implements BuildingRepository {
 
@@ -19,22 +24,64 @@ public class BuildingRepositoryJdbc implements BuildingRepository {
     private static final String SQL_INSERT =
             "INSERT INTO building (address, floors) VALUES (?, ?) RETURNING id";
 
+    // Для пачки id забираем через getGeneratedKeys: RETURNING несовместим с executeBatch
+    private static final String SQL_INSERT_BATCH =
+            "INSERT INTO building (address, floors) VALUES (?, ?)";
+
     private static final String SQL_FIND_BY_ID =
             "SELECT id, address, floors FROM building WHERE id = ?";
 
+    // Адрес не уникален — берём запись с наименьшим id, как раньше делал перебор findAll
+    private static final String SQL_FIND_BY_ADDRESS =
+            "SELECT id, address, floors FROM building WHERE address = ? ORDER BY id LIMIT 1";
+
+    // lower(address) покрыт индексом idx_building_address_lower (см. changelog)
+    private static final String SQL_FIND_BY_ADDRESS_IGNORE_CASE =
+            "SELECT id, address, floors FROM building WHERE lower(address) = lower(?) ORDER BY id LIMIT 1";
+
+    // varchar_pattern_ops в том же индексе позволяет искать LIKE 'префикс%' по B-дереву.
+    // Порядок USING ~<~ — порядок этого индекса (побайтовый), поэтому LIMIT останавливает
+    // проход по диапазону префикса; с ORDER BY id планировщик пошёл бы по первичному ключу
+    // и отфильтровывал бы все строки до limit-й подходящей
+    private static final String SQL_FIND_BY_ADDRESS_PREFIX =
+            "SELECT id, address, floors FROM building WHERE lower(address) LIKE lower(?) ESCAPE '\\' " +
+                    "ORDER BY lower(address) USING ~<~, id LIMIT ?";
+
     private static final String SQL_FIND_ALL =
             "SELECT id, address, floors FROM building";
 
+    // Keyset-пагинация: WHERE id > ? идёт по первичному ключу, цена страницы не зависит от её номера
+    private static final String SQL_FIND_PAGE =
+            "SELECT id, address, floors FROM building WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final String SQL_STREAM_ALL =
+            "SELECT id, address, floors FROM building ORDER BY id";
+
     private static final String SQL_UPDATE =
             "UPDATE building SET address = ?, floors = ? WHERE id = ?";
 
     private static final String SQL_DELETE_BY_ID =
             "DELETE FROM building WHERE id = ?";
 
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    // Сколько строк курсор streamAll забирает с сервера за один раз
+    private static final int STREAM_FETCH_SIZE = 1000;
+
     private final DataSource dataSource;
+    // Сколько строк отправляется одним executeBatch в saveAll/updateAll/deleteAllById
+    private final int batchSize;
 
     public BuildingRepositoryJdbc(DataSource dataSource) {
+        this(dataSource, DEFAULT_BATCH_SIZE);
+    }
+
+    public BuildingRepositoryJdbc(DataSource dataSource, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Размер пачки должен быть положительным: " + batchSize);
+        }
         this.dataSource = dataSource;
+        this.batchSize = batchSize;
         //createTableIfNotExists(); //  теперь таблицу создаёт Liquibase (в идеале)
     }
 
@@ -76,6 +123,42 @@ public class BuildingRepositoryJdbc implements BuildingRepository {
         return id;
     }
 
+    @Override
+    public List<Integer> saveAll(List<BuildingEntity> buildings) {
+        // сохраняем пачку зданий, executeBatch раз в batchSize строк
+        List<Integer> ids = new ArrayList<>(buildings.size());
+        if (buildings.isEmpty()) {
+            return ids;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            inTransaction(connection, () -> {
+                try (PreparedStatement statement = connection.prepareStatement(SQL_INSERT_BATCH, new String[]{"id"})) {
+                    int pending = 0;
+                    for (BuildingEntity building : buildings) {
+                        statement.setString(1, building.getAddress());
+                        statement.setInt(2, building.getFloors());
+                        statement.addBatch();
+                        if (++pending == batchSize) {
+                            executeBatchReturningIds(statement, ids);
+                            pending = 0;
+                        }
+                    }
+                    if (pending > 0) {
+                        executeBatchReturningIds(statement, ids);
+                    }
+                }
+            });
+
+        } catch (SQLException e) {
+            System.out.println("Ошибка при сохранении пачки: " + e.getMessage());
+            e.printStackTrace();
+            ids.clear();
+        }
+
+        return ids;
+    }
+
     @Override
     public BuildingEntity findById(int id) {
         // ищем здание по id
@@ -88,10 +171,7 @@ public class BuildingRepositoryJdbc implements BuildingRepository {
             ResultSet resultSet = statement.executeQuery();
 
             if (resultSet.next()) {
-                building = new BuildingEntity();
-                building.setId(resultSet.getInt("id"));
-                building.setAddress(resultSet.getString("address"));
-                building.setFloors(resultSet.getInt("floors"));
+                building = toEntity(resultSet);
             }
 
         } catch (SQLException e) {
@@ -102,6 +182,62 @@ public class BuildingRepositoryJdbc implements BuildingRepository {
         return building;
     }
 
+    @Override
+    public BuildingEntity findByAddress(String address) {
+        return findOneByAddress(SQL_FIND_BY_ADDRESS, address);
+    }
+
+    @Override
+    public BuildingEntity findByAddressIgnoreCase(String address) {
+        return findOneByAddress(SQL_FIND_BY_ADDRESS_IGNORE_CASE, address);
+    }
+
+    @Override
+    public List<BuildingEntity> findByAddressPrefix(String prefix, int limit) {
+        // ищем здания, чей адрес начинается с prefix
+        List<BuildingEntity> buildings = new ArrayList<>();
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL_FIND_BY_ADDRESS_PREFIX)) {
+
+            statement.setString(1, escapeLike(prefix) + "%");
+            statement.setInt(2, limit);
+            ResultSet resultSet = statement.executeQuery();
+
+            while (resultSet.next()) {
+                buildings.add(toEntity(resultSet));
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Ошибка поиска по началу адреса '" + prefix + "': " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return buildings;
+    }
+
+    private BuildingEntity findOneByAddress(String sql, String address) {
+        // ищем здание по адресу
+        BuildingEntity building = null;
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+
+            statement.setString(1, address);
+            ResultSet resultSet = statement.executeQuery();
+
+            if (resultSet.next()) {
+                building = toEntity(resultSet);
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Ошибка поиска по адресу '" + address + "': " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return building;
+    }
+
     @Override
     public List<BuildingEntity> findAll() {
         // получаем все здания из базы
@@ -113,11 +249,7 @@ public class BuildingRepositoryJdbc implements BuildingRepository {
             ResultSet resultSet = statement.executeQuery();
 
             while (resultSet.next()) {
-                BuildingEntity building = new BuildingEntity();
-                building.setId(resultSet.getInt("id"));
-                building.setAddress(resultSet.getString("address"));
-                building.setFloors(resultSet.getInt("floors"));
-                buildings.add(building);
+                buildings.add(toEntity(resultSet));
             }
 
         } catch (SQLException e) {
@@ -128,6 +260,63 @@ public class BuildingRepositoryJdbc implements BuildingRepository {
         return buildings;
     }
 
+    @Override
+    public List<BuildingEntity> findPage(int afterId, int limit) {
+        // получаем следующую страницу после afterId
+        List<BuildingEntity> buildings = new ArrayList<>(Math.min(limit, STREAM_FETCH_SIZE));
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL_FIND_PAGE)) {
+
+            statement.setInt(1, afterId);
+            statement.setInt(2, limit);
+            ResultSet resultSet = statement.executeQuery();
+
+            while (resultSet.next()) {
+                buildings.add(toEntity(resultSet));
+            }
+
+        } catch (SQLException e) {
+            System.out.println("Ошибка при получении страницы после id=" + afterId + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return buildings;
+    }
+
+    @Override
+    public Stream<BuildingEntity> streamAll() {
+        // pgjdbc читает курсором (порциями по fetchSize), только если autocommit выключен
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+            PreparedStatement statement = connection.prepareStatement(SQL_STREAM_ALL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            ResultSet resultSet = statement.executeQuery();
+
+            Connection opened = connection;
+            return StreamSupport.stream(new ResultSetSpliterator(resultSet), false)
+                    .onClose(() -> closeCursor(opened, statement, resultSet));
+
+        } catch (SQLException e) {
+            System.out.println("Ошибка при открытии курсора: " + e.getMessage());
+            e.printStackTrace();
+            if (connection != null) {
+                closeCursor(connection, null, null);
+            }
+            return Stream.empty();
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<BuildingEntity> action) {
+        try (Stream<BuildingEntity> buildings = streamAll()) {
+            buildings.forEach(action);
+        }
+    }
+
     @Override
     public boolean update(BuildingEntity building) {
         // обновляем здание по id
@@ -151,6 +340,43 @@ public class BuildingRepositoryJdbc implements BuildingRepository {
         return updated;
     }
 
+    @Override
+    public int updateAll(List<BuildingEntity> buildings) {
+        // обновляем пачку зданий по id
+        int[] updated = {0};
+        if (buildings.isEmpty()) {
+            return 0;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            inTransaction(connection, () -> {
+                try (PreparedStatement statement = connection.prepareStatement(SQL_UPDATE)) {
+                    int pending = 0;
+                    for (BuildingEntity building : buildings) {
+                        statement.setString(1, building.getAddress());
+                        statement.setInt(2, building.getFloors());
+                        statement.setInt(3, building.getId());
+                        statement.addBatch();
+                        if (++pending == batchSize) {
+                            updated[0] += countUpdated(statement.executeBatch());
+                            pending = 0;
+                        }
+                    }
+                    if (pending > 0) {
+                        updated[0] += countUpdated(statement.executeBatch());
+                    }
+                }
+            });
+
+        } catch (SQLException e) {
+            System.out.println("Ошибка обновления пачки: " + e.getMessage());
+            e.printStackTrace();
+            return 0;
+        }
+
+        return updated[0];
+    }
+
     @Override
     public void deleteById(int id) {
         // удаляем здание по id
@@ -165,4 +391,137 @@ public class BuildingRepositoryJdbc implements BuildingRepository {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public int deleteAllById(List<Integer> ids) {
+        // удаляем пачку зданий по id
+        int[] deleted = {0};
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            inTransaction(connection, () -> {
+                try (PreparedStatement statement = connection.prepareStatement(SQL_DELETE_BY_ID)) {
+                    int pending = 0;
+                    for (int id : ids) {
+                        statement.setInt(1, id);
+                        statement.addBatch();
+                        if (++pending == batchSize) {
+                            deleted[0] += countUpdated(statement.executeBatch());
+                            pending = 0;
+                        }
+                    }
+                    if (pending > 0) {
+                        deleted[0] += countUpdated(statement.executeBatch());
+                    }
+                }
+            });
+
+        } catch (SQLException e) {
+            System.out.println("Ошибка удаления пачки: " + e.getMessage());
+            e.printStackTrace();
+            return 0;
+        }
+
+        return deleted[0];
+    }
+
+    private static BuildingEntity toEntity(ResultSet resultSet) throws SQLException {
+        BuildingEntity building = new BuildingEntity();
+        building.setId(resultSet.getInt("id"));
+        building.setAddress(resultSet.getString("address"));
+        building.setFloors(resultSet.getInt("floors"));
+        return building;
+    }
+
+    // % и _ в адресе — обычные символы, а не шаблон LIKE
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Закрыть курсор streamAll: завершить транзакцию чтения и вернуть соединение в пул
+     */
+    private static void closeCursor(Connection connection, Statement statement, ResultSet resultSet) {
+        try (connection; statement; resultSet) {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            System.out.println("Ошибка при закрытии курсора: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Выполнить work в одной транзакции: при ошибке откатываем всю пачку целиком
+     */
+    private static void inTransaction(Connection connection, SqlWork work) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            work.run();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackError) {
+                // Ошибка отката не должна скрыть исходную причину
+                e.addSuppressed(rollbackError);
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static void executeBatchReturningIds(PreparedStatement statement, List<Integer> ids) throws SQLException {
+        statement.executeBatch();
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            while (keys.next()) {
+                ids.add(keys.getInt(1));
+            }
+        }
+    }
+
+    // Для UPDATE/DELETE драйвер отдаёт число строк на каждый элемент пачки
+    private static int countUpdated(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    @FunctionalInterface
+    private interface SqlWork {
+        void run() throws SQLException;
+    }
+
+    /**
+     * Строки ResultSet по одной; ошибка чтения посреди потока — IllegalStateException
+     */
+    private static final class ResultSetSpliterator extends Spliterators.AbstractSpliterator<BuildingEntity> {
+        private final ResultSet resultSet;
+
+        ResultSetSpliterator(ResultSet resultSet) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.resultSet = resultSet;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super BuildingEntity> action) {
+            try {
+                if (!resultSet.next()) {
+                    return false;
+                }
+                action.accept(toEntity(resultSet));
+                return true;
+            } catch (SQLException e) {
+                throw new IllegalStateException("Ошибка чтения зданий из курсора: " + e.getMessage(), e);
+            }
+        }
+    }
+}
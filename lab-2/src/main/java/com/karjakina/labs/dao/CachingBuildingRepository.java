@@ -0,0 +1,268 @@
+package com.karjakina.labs.dao;
+
+import com.karjakina.labs.entity.BuildingEntity;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Кэш findById перед любым BuildingRepository (декоратор, подставляется вместо него).
+ *
+ * Хранит до maxSize зданий, при переполнении вытесняется давно не читавшееся (LRU
+ * на LinkedHashMap в порядке доступа). С ttl запись живёт не дольше ttl с момента загрузки.
+ * Любая запись (save, update, deleteById и пакетные операции) удаляет затронутые id,
+ * а не кладёт новое значение: два параллельных update одного здания могут вернуться
+ * из базы в обратном порядке, и записанное последним в кэш не обязательно последнее в базе.
+ * Следующий findById прочитает здание из базы. Отсутствующие здания (null) не кэшируются.
+ *
+ * Наружу отдаются копии: BuildingEntity изменяемый, и правка вызывающим кодом
+ * не должна попасть в кэш. Поиск по адресу, страницы и потоки идут мимо кэша.
+ */
+public class CachingBuildingRepository implements BuildingRepository {
+
+    private final BuildingRepository delegate;
+    private final int maxSize;
+    // 0 — без ограничения по времени
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+
+    // Доступ только под lock
+    private final LinkedHashMap<Integer, CachedBuilding> cache;
+    private final Object lock = new Object();
+    // Растёт при каждой записи: загрузка, начатая до записи, не кладёт в кэш устаревшее значение
+    private long writes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CachingBuildingRepository(BuildingRepository delegate, int maxSize) {
+        this(delegate, maxSize, Duration.ZERO);
+    }
+
+    public CachingBuildingRepository(BuildingRepository delegate, int maxSize, Duration ttl) {
+        this(delegate, maxSize, ttl, System::nanoTime);
+    }
+
+    CachingBuildingRepository(BuildingRepository delegate, int maxSize, Duration ttl, LongSupplier nanoTime) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным: " + maxSize);
+        }
+        if (ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl не может быть отрицательным: " + ttl);
+        }
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedBuilding> eldest) {
+                if (size() > CachingBuildingRepository.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public BuildingEntity findById(int id) {
+        long seenWrites;
+        synchronized (lock) {
+            CachedBuilding cached = cache.get(id);
+            if (cached != null && !cached.isExpired(nanoTime.getAsLong())) {
+                hits.incrementAndGet();
+                return copy(cached.building);
+            }
+            if (cached != null) {
+                cache.remove(id);
+            }
+            seenWrites = writes;
+        }
+
+        misses.incrementAndGet();
+        BuildingEntity building = delegate.findById(id);
+        if (building == null) {
+            return null;
+        }
+
+        synchronized (lock) {
+            // Пока читали базу, здание могли изменить — тогда не кэшируем прочитанное
+            if (writes == seenWrites) {
+                put(building);
+            }
+        }
+        return copy(building);
+    }
+
+    @Override
+    public int save(BuildingEntity building) {
+        int id = delegate.save(building);
+        synchronized (lock) {
+            writes++;
+            if (id > 0) {
+                cache.remove(id);
+            }
+        }
+        return id;
+    }
+
+    @Override
+    public List<Integer> saveAll(List<BuildingEntity> buildings) {
+        // Пачки обычно пишут разово и много — не вытесняем ими горячие здания
+        List<Integer> ids = delegate.saveAll(buildings);
+        synchronized (lock) {
+            writes++;
+        }
+        return ids;
+    }
+
+    @Override
+    public boolean update(BuildingEntity building) {
+        boolean updated = delegate.update(building);
+        synchronized (lock) {
+            writes++;
+            cache.remove(building.getId());
+        }
+        return updated;
+    }
+
+    @Override
+    public int updateAll(List<BuildingEntity> buildings) {
+        // Какие из них нашлись, неизвестно — сбрасываем все
+        int updated = delegate.updateAll(buildings);
+        synchronized (lock) {
+            writes++;
+            for (BuildingEntity building : buildings) {
+                cache.remove(building.getId());
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public void deleteById(int id) {
+        delegate.deleteById(id);
+        synchronized (lock) {
+            writes++;
+            cache.remove(id);
+        }
+    }
+
+    @Override
+    public int deleteAllById(List<Integer> ids) {
+        int deleted = delegate.deleteAllById(ids);
+        synchronized (lock) {
+            writes++;
+            for (Integer id : ids) {
+                cache.remove(id);
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public BuildingEntity findByAddress(String address) {
+        return delegate.findByAddress(address);
+    }
+
+    @Override
+    public BuildingEntity findByAddressIgnoreCase(String address) {
+        return delegate.findByAddressIgnoreCase(address);
+    }
+
+    @Override
+    public List<BuildingEntity> findByAddressPrefix(String prefix, int limit) {
+        return delegate.findByAddressPrefix(prefix, limit);
+    }
+
+    @Override
+    public List<BuildingEntity> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<BuildingEntity> findPage(int afterId, int limit) {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public Stream<BuildingEntity> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public void forEach(Consumer<BuildingEntity> action) {
+        delegate.forEach(action);
+    }
+
+    // Попадания findById в кэш
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    // Промахи findById (включая записи с истёкшим ttl)
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    // Вытеснения при переполнении
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return cache.size();
+        }
+    }
+
+    // Сбросить кэш целиком (например, после изменения таблицы в обход репозитория)
+    public void clear() {
+        synchronized (lock) {
+            writes++;
+            cache.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return String.format("CachingBuildingRepository{size=%d/%d, hits=%d, misses=%d, evictions=%d, hitRate=%.1f%%}",
+                size(), maxSize, hitCount, misses.get(), evictions.get(),
+                total == 0 ? 0.0 : hitCount * 100.0 / total);
+    }
+
+    // Вызывать под lock
+    private void put(BuildingEntity building) {
+        long expiresAt = ttlNanos == 0 ? Long.MAX_VALUE : nanoTime.getAsLong() + ttlNanos;
+        cache.put(building.getId(), new CachedBuilding(copy(building), expiresAt));
+    }
+
+    private static BuildingEntity copy(BuildingEntity building) {
+        return new BuildingEntity(building.getId(), building.getAddress(), building.getFloors());
+    }
+
+    private static final class CachedBuilding {
+        final BuildingEntity building;
+        final long expiresAt;
+
+        CachedBuilding(BuildingEntity building, long expiresAt) {
+            this.building = building;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt != Long.MAX_VALUE && now - expiresAt >= 0;
+        }
+    }
+}
@@ -13,14 +13,18 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.Properties;
 
 public class ConnectionConfig {
 
     private static final String PROPERTIES_FILE = "db.properties";
 
+    // Настройки читаются из файла один раз
+    private static Properties properties;
+
     public static DataSource createDataSource() {
-        Properties properties = loadProperties();
+        Properties properties = properties();
 
         HikariConfig hikariConfig = new HikariConfig();
         hikariConfig.setJdbcUrl(properties.getProperty("db.url"));
@@ -30,6 +34,8 @@ public class ConnectionConfig {
         String poolSize = properties.getProperty("db.pool.size", "5");
         hikariConfig.setMaximumPoolSize(Integer.parseInt(poolSize));
         hikariConfig.setPoolName("building-app-pool");
+        hikariConfig.addDataSourceProperty("reWriteBatchedInserts",
+                properties.getProperty("db.rewrite.batched.inserts", "true"));
 
         System.out.println("Инициализация пула соединений HikariCP...");
         HikariDataSource dataSource = new HikariDataSource(hikariConfig);
@@ -45,6 +51,34 @@ public class ConnectionConfig {
         return dataSource;
     }
 
+    /**
+     * Размер пачки для пакетных операций репозитория (db.batch.size)
+     */
+    public static int batchSize() {
+        return Integer.parseInt(properties().getProperty("db.batch.size", "1000"));
+    }
+
+    /**
+     * Сколько зданий держит кэш репозитория (db.cache.size)
+     */
+    public static int cacheSize() {
+        return Integer.parseInt(properties().getProperty("db.cache.size", "10000"));
+    }
+
+    /**
+     * Время жизни записи в кэше репозитория (db.cache.ttl.seconds, 0 — без ограничения)
+     */
+    public static Duration cacheTtl() {
+        return Duration.ofSeconds(Long.parseLong(properties().getProperty("db.cache.ttl.seconds", "0")));
+    }
+
+    private static synchronized Properties properties() {
+        if (properties == null) {
+            properties = loadProperties();
+        }
+        return properties;
+    }
+
     private static void initializeLiquibase(DataSource dataSource) throws Exception {
         Connection connection = null;
         try {
@@ -3,23 +3,45 @@ package com.karjakina.labs.service;
 import com.karjakina.labs.entity.BuildingEntity;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface BuildingService {
 
     // Create возвращает id созданной записи
     int save(String address, int floors);
 
+    // Create пачкой — id созданных записей в том же порядке
+    List<Integer> saveAll(List<BuildingEntity> buildings);
+
     // Read  (бросает исключение, если запись не найдена)
     BuildingEntity findById(int id);
 
     // Read (бросает исключение, если запись не найдена)
     BuildingEntity findByAddress(String address);
 
+    // Read без учёта регистра (бросает исключение, если запись не найдена)
+    BuildingEntity findByAddressIgnoreCase(String address);
+
+    // Read по началу адреса без учёта регистра, не больше limit записей
+    List<BuildingEntity> findByAddressPrefix(String prefix, int limit);
+
     List<BuildingEntity> findAll();
 
+    // Read страницы: до limit записей с id > afterId (первая страница — afterId = 0)
+    List<BuildingEntity> findPage(int afterId, int limit);
+
+    // Read всех записей потоком с ограниченной памятью — Stream нужно закрыть
+    Stream<BuildingEntity> streamAll();
+
     // Update (используйте id для поиска сущности и бросайте исключение, если запись не найдена)
     void update(BuildingEntity building);
 
+    // Update пачкой — возвращает, сколько записей нашлось и обновилось
+    int updateAll(List<BuildingEntity> buildings);
+
     // Delete
     void deleteById(int id);
+
+    // Delete пачкой — возвращает, сколько записей удалено
+    int deleteAllById(List<Integer> ids);
 }
@@ -5,6 +5,7 @@ import com.karjakina.labs.entity.BuildingEntity;
 import com.karjakina.labs.exception.BuildingNotFoundException;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public class BuildingServiceImpl implements BuildingService {
 
@@ -20,6 +21,11 @@ public class BuildingServiceImpl implements BuildingService {
         return buildingRepository.save(building);
     }
 
+    @Override
+    public List<Integer> saveAll(List<BuildingEntity> buildings) {
+        return buildingRepository.saveAll(buildings);
+    }
+
     @Override
     public BuildingEntity findById(int id) {
         BuildingEntity building = buildingRepository.findById(id);
@@ -31,14 +37,28 @@ public class BuildingServiceImpl implements BuildingService {
 
     @Override
     public BuildingEntity findByAddress(String address) {
+        BuildingEntity building = buildingRepository.findByAddress(address);
+        if (building == null) {
+            throw new BuildingNotFoundException(address);
+        }
+        return building;
+    }
 
-        List<BuildingEntity> allBuildings = buildingRepository.findAll();
-        for (BuildingEntity building : allBuildings) {
-            if (building.getAddress().equals(address)) {
-                return building;
-            }
+    @Override
+    public BuildingEntity findByAddressIgnoreCase(String address) {
+        BuildingEntity building = buildingRepository.findByAddressIgnoreCase(address);
+        if (building == null) {
+            throw new BuildingNotFoundException(address);
+        }
+        return building;
+    }
+
+    @Override
+    public List<BuildingEntity> findByAddressPrefix(String prefix, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit должен быть положительным: " + limit);
         }
-        throw new BuildingNotFoundException(address);
+        return buildingRepository.findByAddressPrefix(prefix, limit);
     }
 
     @Override
@@ -46,6 +66,19 @@ public class BuildingServiceImpl implements BuildingService {
         return buildingRepository.findAll();
     }
 
+    @Override
+    public List<BuildingEntity> findPage(int afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit должен быть положительным: " + limit);
+        }
+        return buildingRepository.findPage(afterId, limit);
+    }
+
+    @Override
+    public Stream<BuildingEntity> streamAll() {
+        return buildingRepository.streamAll();
+    }
+
     @Override
     public void update(BuildingEntity building) {
         boolean updated = buildingRepository.update(building);
@@ -54,8 +87,23 @@ public class BuildingServiceImpl implements BuildingService {
         }
     }
 
+    @Override
+    public int updateAll(List<BuildingEntity> buildings) {
+        for (BuildingEntity building : buildings) {
+            if (building.getId() == null) {
+                throw new IllegalArgumentException("Для обновления нужен id: " + building);
+            }
+        }
+        return buildingRepository.updateAll(buildings);
+    }
+
     @Override
     public void deleteById(int id) {
         buildingRepository.deleteById(id);
     }
+
+    @Override
+    public int deleteAllById(List<Integer> ids) {
+        return buildingRepository.deleteAllById(ids);
+    }
 }
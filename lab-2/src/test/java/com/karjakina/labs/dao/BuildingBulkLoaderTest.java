@@ -0,0 +1,181 @@
+package com.karjakina.labs.dao;
+
+import com.karjakina.labs.entity.BuildingEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BuildingBulkLoaderTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private BuildingRepository fallbackRepository;
+
+    private BuildingBulkLoader loader;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(dataSource.getConnection()).thenReturn(connection);
+        loader = new BuildingBulkLoader(dataSource, fallbackRepository);
+    }
+
+    // COPY на PostgreSQL
+
+    @Test
+    void load_shouldStreamCsvRowsIntoCopy() throws SQLException {
+        CopyIn copyIn = mockCopyIn();
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        doAnswer(invocation -> {
+            sent.write(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        when(copyIn.endCopy()).thenReturn(3L);
+
+        long loaded = loader.load(List.of(
+                new BuildingEntity("ул. Ленина, д. 1", 5),
+                new BuildingEntity("Дом \"Ромашка\"", 2),
+                new BuildingEntity("", 1)
+        ).iterator());
+
+        assertEquals(3, loaded);
+        assertEquals("\"ул. Ленина, д. 1\",5\n\"Дом \"\"Ромашка\"\"\",2\n\"\",1\n",
+                sent.toString(StandardCharsets.UTF_8));
+        verifyNoInteractions(fallbackRepository);
+    }
+
+    @Test
+    void load_shouldCancelCopy_whenWriteFails() throws SQLException {
+        CopyIn copyIn = mockCopyIn();
+        doThrow(new SQLException("обрыв")).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        when(copyIn.isActive()).thenReturn(true);
+
+        long loaded = loader.load(List.of(new BuildingEntity("ул. Садовая, д. 7", 3)).iterator());
+
+        assertEquals(0, loaded);
+        verify(copyIn).cancelCopy();
+    }
+
+    // запасной путь без COPY
+
+    @Test
+    void load_shouldFallBackToSaveAll_onNonPostgresDatabase() throws SQLException {
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(false);
+        when(fallbackRepository.saveAll(anyList())).thenReturn(List.of(1, 2));
+
+        long loaded = loader.load(List.of(
+                new BuildingEntity("ул. Ленина, д. 1", 5),
+                new BuildingEntity("пр. Мира, д. 42", 12)
+        ).iterator());
+
+        assertEquals(2, loaded);
+        verify(fallbackRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void load_shouldReleaseProbeConnection_beforeFallingBack() throws SQLException {
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(false);
+        // Пул из одного соединения: saveAll получит его, только если пробное уже закрыто
+        when(fallbackRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            verify(connection).close();
+            return List.of(1);
+        });
+
+        assertEquals(1, loader.load(List.of(new BuildingEntity("ул. Ленина, д. 1", 5)).iterator()));
+    }
+
+    @Test
+    void load_shouldReturnRowsOfSavedChunks_whenLaterChunkFails() throws SQLException {
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(false);
+        when(fallbackRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<?> chunk = invocation.getArgument(0);
+            return chunk.size() == 10_000 ? Collections.nCopies(chunk.size(), 1) : List.of();
+        });
+        List<BuildingEntity> buildings = new ArrayList<>();
+        for (int i = 0; i < 10_005; i++) {
+            buildings.add(new BuildingEntity("Дом " + i, 1));
+        }
+
+        assertEquals(10_000, loader.load(buildings.iterator()));
+        verify(fallbackRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void loadCsv_shouldParseQuotedFields_onNonPostgresDatabase(@TempDir Path tempDir) throws Exception {
+        Path csv = tempDir.resolve("buildings.csv");
+        Files.writeString(csv, "address,floors\n" +
+                "\"ул. Ленина, д. 1\",5\r\n" +
+                "\"Дом \"\"Ромашка\"\"\nкорпус 2\",2\n", StandardCharsets.UTF_8);
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(false);
+        when(fallbackRepository.saveAll(anyList())).thenReturn(List.of(1, 2));
+
+        long loaded = loader.loadCsv(csv);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<BuildingEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(fallbackRepository).saveAll(captor.capture());
+        List<BuildingEntity> saved = captor.getValue();
+        assertEquals(2, loaded);
+        assertEquals("ул. Ленина, д. 1", saved.get(0).getAddress());
+        assertEquals(5, saved.get(0).getFloors());
+        assertEquals("Дом \"Ромашка\"\nкорпус 2", saved.get(1).getAddress());
+        assertEquals(2, saved.get(1).getFloors());
+    }
+
+    @Test
+    void loadCsv_shouldReturnRowsOfSavedChunks_whenRowAfterFirstChunkIsMalformed(@TempDir Path tempDir)
+            throws Exception {
+        StringBuilder content = new StringBuilder("address,floors\n");
+        for (int i = 0; i < 10_003; i++) {
+            content.append("Дом ").append(i).append(",3\n");
+        }
+        content.append("Дом без этажей,много\n");
+        Path csv = tempDir.resolve("buildings.csv");
+        Files.writeString(csv, content, StandardCharsets.UTF_8);
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(false);
+        when(fallbackRepository.saveAll(anyList()))
+                .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), 1));
+
+        assertEquals(10_000, loader.loadCsv(csv));
+        // Второй кусок не дочитан до конца и не сохраняется
+        verify(fallbackRepository, times(1)).saveAll(anyList());
+    }
+
+    private CopyIn mockCopyIn() throws SQLException {
+        PGConnection pgConnection = mock(PGConnection.class);
+        CopyManager copyManager = mock(CopyManager.class);
+        CopyIn copyIn = mock(CopyIn.class);
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString())).thenReturn(copyIn);
+        return copyIn;
+    }
+}
@@ -0,0 +1,238 @@
+package com.karjakina.labs.dao;
+
+import com.karjakina.labs.entity.BuildingEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BuildingRepositoryJdbcTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private BuildingRepositoryJdbc repository;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(dataSource.getConnection()).thenReturn(connection);
+        repository = new BuildingRepositoryJdbc(dataSource);
+    }
+
+    // findPage
+
+    @Test
+    void findPage_shouldBindAfterIdAndLimit() throws SQLException {
+        when(connection.prepareStatement(contains("WHERE id > ?"))).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        stubRows(new BuildingEntity(11, "ул. Ленина, д. 1", 5));
+
+        List<BuildingEntity> page = repository.findPage(10, 50);
+
+        assertEquals(1, page.size());
+        assertEquals(11, page.get(0).getId());
+        verify(statement).setInt(1, 10);
+        verify(statement).setInt(2, 50);
+    }
+
+    // findByAddress / findByAddressIgnoreCase / findByAddressPrefix
+
+    @Test
+    void findByAddress_shouldBindAddressAsIs() throws SQLException {
+        when(connection.prepareStatement(contains("WHERE address = ?"))).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        stubRows(new BuildingEntity(3, "ул. Ленина, д. 1", 5));
+
+        BuildingEntity building = repository.findByAddress("ул. Ленина, д. 1");
+
+        assertEquals(3, building.getId());
+        verify(statement).setString(1, "ул. Ленина, д. 1");
+    }
+
+    @Test
+    void findByAddressIgnoreCase_shouldLowerInQuery_andBindAddressAsIs() throws SQLException {
+        when(connection.prepareStatement(contains("WHERE lower(address) = lower(?)"))).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        stubRows();
+
+        assertNull(repository.findByAddressIgnoreCase("УЛ. Ленина, Д. 1"));
+        verify(statement).setString(1, "УЛ. Ленина, Д. 1");
+    }
+
+    @Test
+    void findByAddressPrefix_shouldEscapeLikeWildcards_andBindLimit() throws SQLException {
+        when(connection.prepareStatement(contains("LIKE lower(?)"))).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        stubRows();
+
+        repository.findByAddressPrefix("50%_off\\", 20);
+
+        verify(statement).setString(1, "50\\%\\_off\\\\%");
+        verify(statement).setInt(2, 20);
+    }
+
+    @Test
+    void findByAddressPrefix_shouldOrderByIndexedAddress() throws SQLException {
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        stubRows(new BuildingEntity(7, "ул. Ленина, д. 1", 5), new BuildingEntity(2, "ул. Ленина, д. 2", 9));
+
+        List<BuildingEntity> buildings = repository.findByAddressPrefix("ул. Ленина", 10);
+
+        assertEquals(List.of(7, 2), buildings.stream().map(BuildingEntity::getId).toList());
+        verify(connection).prepareStatement(contains("ORDER BY lower(address) USING ~<~, id LIMIT ?"));
+    }
+
+    // streamAll
+
+    @Test
+    void streamAll_shouldReadThroughCursor_andReleaseConnectionOnClose() throws SQLException {
+        when(connection.prepareStatement(anyString(), eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY)))
+                .thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        stubRows(new BuildingEntity(1, "ул. Ленина, д. 1", 5), new BuildingEntity(2, "пр. Мира, д. 42", 12));
+
+        List<Integer> ids = new ArrayList<>();
+        try (Stream<BuildingEntity> buildings = repository.streamAll()) {
+            buildings.forEach(building -> ids.add(building.getId()));
+            verify(connection, never()).close();
+        }
+
+        assertEquals(List.of(1, 2), ids);
+        InOrder order = inOrder(connection, statement);
+        order.verify(connection).setAutoCommit(false);
+        order.verify(statement).setFetchSize(intThat(size -> size > 0));
+        order.verify(connection).setAutoCommit(true);
+        verify(resultSet).close();
+        verify(statement).close();
+        verify(connection).close();
+    }
+
+    @Test
+    void streamAll_shouldReturnEmptyStream_andReleaseConnection_whenQueryFails() throws SQLException {
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenThrow(new SQLException("нет таблицы"));
+
+        try (Stream<BuildingEntity> buildings = repository.streamAll()) {
+            assertEquals(0, buildings.count());
+        }
+        verify(connection).close();
+    }
+
+    // saveAll / updateAll / deleteAllById
+
+    @Test
+    void saveAll_shouldExecuteBatchEveryBatchSizeRows_andReturnKeysInOrder() throws SQLException {
+        repository = new BuildingRepositoryJdbc(dataSource, 2);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.prepareStatement(contains("INSERT"), any(String[].class))).thenReturn(statement);
+        ResultSet first = keys(1, 2);
+        ResultSet second = keys(3, 4);
+        ResultSet last = keys(5);
+        when(statement.getGeneratedKeys()).thenReturn(first, second, last);
+        // Сколько строк было в пачке на момент каждого executeBatch
+        int[] added = {0};
+        List<Integer> batches = new ArrayList<>();
+        doAnswer(invocation -> added[0]++).when(statement).addBatch();
+        when(statement.executeBatch()).thenAnswer(invocation -> {
+            batches.add(added[0]);
+            added[0] = 0;
+            return new int[0];
+        });
+
+        List<Integer> ids = repository.saveAll(List.of(new BuildingEntity("А", 1), new BuildingEntity("Б", 2),
+                new BuildingEntity("В", 3), new BuildingEntity("Г", 4), new BuildingEntity("Д", 5)));
+
+        assertEquals(List.of(1, 2, 3, 4, 5), ids);
+        assertEquals(List.of(2, 2, 1), batches);
+        InOrder order = inOrder(connection);
+        order.verify(connection).setAutoCommit(false);
+        order.verify(connection).commit();
+        order.verify(connection).setAutoCommit(true);
+        verify(connection, never()).rollback();
+    }
+
+    @Test
+    void updateAll_shouldSumUpdatedRowsOverAllBatches() throws SQLException {
+        repository = new BuildingRepositoryJdbc(dataSource, 2);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.prepareStatement(contains("UPDATE"))).thenReturn(statement);
+        when(statement.executeBatch()).thenReturn(new int[]{1, 0}, new int[]{1});
+
+        int updated = repository.updateAll(List.of(new BuildingEntity(1, "А", 1), new BuildingEntity(99, "Б", 2),
+                new BuildingEntity(3, "В", 3)));
+
+        assertEquals(2, updated);
+        verify(statement, times(2)).executeBatch();
+        verify(connection).commit();
+    }
+
+    @Test
+    void deleteAllById_shouldRollbackAndRestoreAutoCommit_whenBatchFails() throws SQLException {
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.prepareStatement(contains("DELETE"))).thenReturn(statement);
+        when(statement.executeBatch()).thenThrow(new SQLException("нарушен внешний ключ"));
+
+        assertEquals(0, repository.deleteAllById(List.of(1, 2)));
+
+        InOrder order = inOrder(connection);
+        order.verify(connection).setAutoCommit(false);
+        order.verify(connection).rollback();
+        order.verify(connection).setAutoCommit(true);
+        verify(connection, never()).commit();
+        verify(connection).close();
+    }
+
+    @Test
+    void saveAll_shouldRestoreAutoCommit_whenRollbackFailsToo() throws SQLException {
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.prepareStatement(contains("INSERT"), any(String[].class))).thenReturn(statement);
+        when(statement.executeBatch()).thenThrow(new SQLException("нет таблицы"));
+        doThrow(new SQLException("соединение разорвано")).when(connection).rollback();
+
+        assertTrue(repository.saveAll(List.of(new BuildingEntity("А", 1))).isEmpty());
+
+        verify(connection).setAutoCommit(true);
+        verify(connection).close();
+    }
+
+    private static ResultSet keys(int... ids) throws SQLException {
+        ResultSet keys = mock(ResultSet.class);
+        int[] row = {-1};
+        when(keys.next()).thenAnswer(invocation -> ++row[0] < ids.length);
+        when(keys.getInt(1)).thenAnswer(invocation -> ids[row[0]]);
+        return keys;
+    }
+
+    private void stubRows(BuildingEntity... rows) throws SQLException {
+        int[] row = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+        lenient().when(resultSet.getInt("id")).thenAnswer(invocation -> rows[row[0]].getId());
+        lenient().when(resultSet.getString("address")).thenAnswer(invocation -> rows[row[0]].getAddress());
+        lenient().when(resultSet.getInt("floors")).thenAnswer(invocation -> rows[row[0]].getFloors());
+    }
+}
@@ -0,0 +1,233 @@
+package com.karjakina.labs.dao;
+
+import com.karjakina.labs.entity.BuildingEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingBuildingRepositoryTest {
+
+    @Mock
+    private BuildingRepository delegate;
+
+    private long now;
+    private CachingBuildingRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new CachingBuildingRepository(delegate, 2, Duration.ZERO, () -> now);
+    }
+
+    // findById
+
+    @Test
+    void findById_shouldHitCache_whenReadTwice() {
+        when(delegate.findById(1)).thenReturn(new BuildingEntity(1, "ул. Ленина, д. 1", 5));
+
+        BuildingEntity first = repository.findById(1);
+        BuildingEntity second = repository.findById(1);
+
+        assertEquals("ул. Ленина, д. 1", second.getAddress());
+        assertEquals(first.getFloors(), second.getFloors());
+        verify(delegate, times(1)).findById(1);
+        assertEquals(1, repository.getHitCount());
+        assertEquals(1, repository.getMissCount());
+    }
+
+    @Test
+    void findById_shouldNotCacheNull_whenNotFound() {
+        when(delegate.findById(999)).thenReturn(null);
+
+        assertNull(repository.findById(999));
+        assertNull(repository.findById(999));
+
+        verify(delegate, times(2)).findById(999);
+        assertEquals(0, repository.size());
+    }
+
+    @Test
+    void findById_shouldReturnCopy_whenCallerModifiesResult() {
+        when(delegate.findById(1)).thenReturn(new BuildingEntity(1, "ул. Ленина, д. 1", 5));
+
+        repository.findById(1).setFloors(100);
+
+        assertEquals(5, repository.findById(1).getFloors());
+    }
+
+    @Test
+    void findById_shouldEvictLeastRecentlyUsed_whenFull() {
+        when(delegate.findById(1)).thenReturn(new BuildingEntity(1, "А", 1));
+        when(delegate.findById(2)).thenReturn(new BuildingEntity(2, "Б", 2));
+        when(delegate.findById(3)).thenReturn(new BuildingEntity(3, "В", 3));
+
+        repository.findById(1);
+        repository.findById(2);
+        repository.findById(1); // 2 теперь давнее всех
+        repository.findById(3);
+
+        assertEquals(2, repository.size());
+        assertEquals(1, repository.getEvictionCount());
+
+        repository.findById(1);
+        repository.findById(2);
+        verify(delegate, times(1)).findById(1);
+        verify(delegate, times(2)).findById(2);
+    }
+
+    @Test
+    void findById_shouldReload_whenTtlExpired() {
+        repository = new CachingBuildingRepository(delegate, 2, Duration.ofSeconds(10), () -> now);
+        when(delegate.findById(1)).thenReturn(new BuildingEntity(1, "ул. Ленина, д. 1", 5));
+
+        repository.findById(1);
+        now += Duration.ofSeconds(9).toNanos();
+        repository.findById(1);
+        now += Duration.ofSeconds(1).toNanos();
+        repository.findById(1);
+
+        verify(delegate, times(2)).findById(1);
+        assertEquals(1, repository.getHitCount());
+        assertEquals(2, repository.getMissCount());
+    }
+
+    // save
+
+    @Test
+    void save_shouldReadFromDatabase_afterSave() {
+        when(delegate.save(any())).thenReturn(7);
+        when(delegate.findById(7)).thenReturn(new BuildingEntity(7, "пр. Мира, д. 42", 12));
+
+        int id = repository.save(new BuildingEntity("пр. Мира, д. 42", 12));
+
+        assertEquals(7, id);
+        assertEquals(0, repository.size());
+        BuildingEntity cached = repository.findById(7);
+        assertEquals("пр. Мира, д. 42", cached.getAddress());
+        repository.findById(7);
+        verify(delegate, times(1)).findById(7);
+    }
+
+    @Test
+    void save_shouldNotCache_whenSaveFailed() {
+        when(delegate.save(any())).thenReturn(-1);
+
+        repository.save(new BuildingEntity("пр. Мира, д. 42", 12));
+
+        assertEquals(0, repository.size());
+    }
+
+    // update
+
+    @Test
+    void update_shouldInvalidate_whenUpdated() {
+        when(delegate.findById(1)).thenReturn(new BuildingEntity(1, "ул. Ленина, д. 1", 5),
+                new BuildingEntity(1, "ул. Ленина, д. 1 (обновлено)", 9));
+        when(delegate.update(any())).thenReturn(true);
+        repository.findById(1);
+
+        repository.update(new BuildingEntity(1, "ул. Ленина, д. 1 (обновлено)", 9));
+
+        assertEquals(0, repository.size());
+        BuildingEntity cached = repository.findById(1);
+        assertEquals("ул. Ленина, д. 1 (обновлено)", cached.getAddress());
+        assertEquals(9, cached.getFloors());
+        verify(delegate, times(2)).findById(1);
+    }
+
+    @Test
+    void update_shouldNotLeaveStaleValue_whenTwoUpdatesInterleave() throws InterruptedException {
+        // В базе побеждает второе обновление (9 этажей), но первое возвращается из базы позже
+        when(delegate.findById(1)).thenReturn(new BuildingEntity(1, "ул. Ленина, д. 1", 5),
+                new BuildingEntity(1, "ул. Ленина, д. 1", 9));
+        CountDownLatch secondDone = new CountDownLatch(1);
+        when(delegate.update(any())).thenAnswer(invocation -> {
+            BuildingEntity building = invocation.getArgument(0);
+            if (building.getFloors() == 7) {
+                secondDone.await(5, TimeUnit.SECONDS);
+            }
+            return true;
+        });
+        repository.findById(1);
+
+        Thread first = new Thread(() -> repository.update(new BuildingEntity(1, "ул. Ленина, д. 1", 7)));
+        first.start();
+        repository.update(new BuildingEntity(1, "ул. Ленина, д. 1", 9));
+        secondDone.countDown();
+        first.join(5_000);
+
+        assertEquals(9, repository.findById(1).getFloors());
+    }
+
+    @Test
+    void update_shouldInvalidate_whenNotUpdated() {
+        when(delegate.findById(1)).thenReturn(new BuildingEntity(1, "ул. Ленина, д. 1", 5));
+        when(delegate.update(any())).thenReturn(false);
+        repository.findById(1);
+
+        repository.update(new BuildingEntity(1, "Адрес", 1));
+
+        assertEquals(0, repository.size());
+    }
+
+    @Test
+    void updateAll_shouldInvalidateAll_whenCalled() {
+        when(delegate.findById(1)).thenReturn(new BuildingEntity(1, "А", 1));
+        when(delegate.findById(2)).thenReturn(new BuildingEntity(2, "Б", 2));
+        repository.findById(1);
+        repository.findById(2);
+
+        repository.updateAll(List.of(new BuildingEntity(1, "А2", 1)));
+
+        repository.findById(1);
+        repository.findById(2);
+        verify(delegate, times(2)).findById(1);
+        verify(delegate, times(1)).findById(2);
+    }
+
+    // deleteById
+
+    @Test
+    void deleteById_shouldInvalidate_whenDeleted() {
+        when(delegate.findById(1)).thenReturn(new BuildingEntity(1, "ул. Ленина, д. 1", 5));
+        repository.findById(1);
+
+        repository.deleteById(1);
+
+        verify(delegate).deleteById(1);
+        assertEquals(0, repository.size());
+    }
+
+    @Test
+    void deleteAllById_shouldInvalidateAll_whenDeleted() {
+        when(delegate.findById(1)).thenReturn(new BuildingEntity(1, "А", 1));
+        when(delegate.findById(2)).thenReturn(new BuildingEntity(2, "Б", 2));
+        when(delegate.deleteAllById(List.of(1, 2))).thenReturn(2);
+        repository.findById(1);
+        repository.findById(2);
+
+        assertEquals(2, repository.deleteAllById(List.of(1, 2)));
+        assertEquals(0, repository.size());
+    }
+
+    // остальные чтения
+
+    @Test
+    void findAll_shouldDelegate_withoutCaching() {
+        List<BuildingEntity> buildings = List.of(new BuildingEntity(1, "А", 1));
+        when(delegate.findAll()).thenReturn(buildings);
+
+        assertSame(buildings, repository.findAll());
+        assertEquals(0, repository.size());
+    }
+}
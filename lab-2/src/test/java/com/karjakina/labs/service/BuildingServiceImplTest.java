@@ -89,7 +89,7 @@ class BuildingServiceImplTest {
     @Test
     void findByAddress_shouldReturnBuilding_whenExists() {
         BuildingEntity building = new BuildingEntity(1, "ул. Садовая, д. 3", 4);
-        when(buildingRepository.findAll()).thenReturn(List.of(building));
+        when(buildingRepository.findByAddress("ул. Садовая, д. 3")).thenReturn(building);
 
         BuildingEntity result = buildingService.findByAddress("ул. Садовая, д. 3");
 
@@ -98,19 +98,45 @@ class BuildingServiceImplTest {
 
     @Test
     void findByAddress_shouldThrowException_whenNotFound() {
-        when(buildingRepository.findAll()).thenReturn(List.of());
+        when(buildingRepository.findByAddress("Несуществующий адрес")).thenReturn(null);
 
         assertThrows(BuildingNotFoundException.class,
                 () -> buildingService.findByAddress("Несуществующий адрес"));
     }
 
     @Test
-    void findByAddress_shouldThrowException_whenAddressDoesNotMatch() {
+    void findByAddress_shouldQueryRepository_insteadOfLoadingAll() {
         BuildingEntity building = new BuildingEntity(1, "ул. Ленина, д. 1", 5);
-        when(buildingRepository.findAll()).thenReturn(List.of(building));
+        when(buildingRepository.findByAddress("ул. Ленина, д. 1")).thenReturn(building);
+
+        buildingService.findByAddress("ул. Ленина, д. 1");
+
+        verify(buildingRepository, never()).findAll();
+    }
+
+    @Test
+    void findByAddressIgnoreCase_shouldThrowException_whenNotFound() {
+        when(buildingRepository.findByAddressIgnoreCase("УЛ. ПУШКИНА, Д. 10")).thenReturn(null);
 
         assertThrows(BuildingNotFoundException.class,
-                () -> buildingService.findByAddress("ул. Пушкина, д. 10"));
+                () -> buildingService.findByAddressIgnoreCase("УЛ. ПУШКИНА, Д. 10"));
+    }
+
+    @Test
+    void findByAddressPrefix_shouldReturnRepositoryResult() {
+        List<BuildingEntity> buildings = List.of(
+                new BuildingEntity(1, "ул. Ленина, д. 1", 5),
+                new BuildingEntity(4, "ул. Ленина, д. 7", 9)
+        );
+        when(buildingRepository.findByAddressPrefix("ул. Ленина", 10)).thenReturn(buildings);
+
+        assertEquals(buildings, buildingService.findByAddressPrefix("ул. Ленина", 10));
+    }
+
+    @Test
+    void findByAddressPrefix_shouldRejectNonPositiveLimit() {
+        assertThrows(IllegalArgumentException.class, () -> buildingService.findByAddressPrefix("ул.", 0));
+        verifyNoInteractions(buildingRepository);
     }
 
     // findAll
@@ -138,6 +164,23 @@ class BuildingServiceImplTest {
         assertTrue(result.isEmpty());
     }
 
+    // findPage
+
+    @Test
+    void findPage_shouldReturnRepositoryPage() {
+        List<BuildingEntity> page = List.of(new BuildingEntity(11, "ул. Ленина, д. 1", 5));
+        when(buildingRepository.findPage(10, 50)).thenReturn(page);
+
+        assertEquals(page, buildingService.findPage(10, 50));
+        verify(buildingRepository, never()).findAll();
+    }
+
+    @Test
+    void findPage_shouldRejectNonPositiveLimit() {
+        assertThrows(IllegalArgumentException.class, () -> buildingService.findPage(0, 0));
+        verifyNoInteractions(buildingRepository);
+    }
+
     // update
 
     @Test
@@ -173,4 +216,44 @@ class BuildingServiceImplTest {
 
         assertDoesNotThrow(() -> buildingService.deleteById(999));
     }
-}
\ No newline at end of file
+
+    // пакетные операции
+
+    @Test
+    void saveAll_shouldReturnIdsFromRepository() {
+        List<BuildingEntity> buildings = List.of(
+                new BuildingEntity("ул. Гагарина, д. 10", 9),
+                new BuildingEntity("ул. Гагарина, д. 12", 14)
+        );
+        when(buildingRepository.saveAll(buildings)).thenReturn(List.of(5, 6));
+
+        assertEquals(List.of(5, 6), buildingService.saveAll(buildings));
+        verify(buildingRepository, never()).save(any(BuildingEntity.class));
+    }
+
+    @Test
+    void updateAll_shouldReturnUpdatedCount() {
+        List<BuildingEntity> buildings = List.of(
+                new BuildingEntity(1, "ул. Ленина, д. 1", 9),
+                new BuildingEntity(999, "Адрес", 1)
+        );
+        when(buildingRepository.updateAll(buildings)).thenReturn(1);
+
+        assertEquals(1, buildingService.updateAll(buildings));
+    }
+
+    @Test
+    void updateAll_shouldRejectBuildingWithoutId() {
+        List<BuildingEntity> buildings = List.of(new BuildingEntity("ул. Ленина, д. 1", 9));
+
+        assertThrows(IllegalArgumentException.class, () -> buildingService.updateAll(buildings));
+        verifyNoInteractions(buildingRepository);
+    }
+
+    @Test
+    void deleteAllById_shouldReturnDeletedCount() {
+        when(buildingRepository.deleteAllById(List.of(1, 2, 999))).thenReturn(2);
+
+        assertEquals(2, buildingService.deleteAllById(List.of(1, 2, 999)));
+    }
+}